@@ -3,7 +3,9 @@ package ru.vyarus.yaml.updater;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import ru.vyarus.yaml.updater.listen.UpdateListener;
 import ru.vyarus.yaml.updater.listen.UpdateListenerAdapter;
+import ru.vyarus.yaml.updater.parse.struct.YamlParserEngine;
 import ru.vyarus.yaml.updater.report.UpdateReport;
+import ru.vyarus.yaml.updater.update.MergePlan;
 import ru.vyarus.yaml.updater.util.FileUtils;
 
 import java.io.File;
@@ -13,6 +15,8 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Update configuration. Required current config and updating file. Optionally, environment variables could be
@@ -37,6 +41,19 @@ public final class UpdateConfig {
     private boolean validateResult = true;
     private UpdateListener listener;
     private boolean dryRun;
+    // current config size (bytes) starting from which memory mapped read used (0 - disabled)
+    private long mappedReadThreshold;
+    // config size (bytes) starting from which config parsed by chunks in parallel (0 - disabled)
+    private long chunkedParseThreshold;
+    private YamlParserEngine parserEngine;
+    // executor for current config parsing (null - sequential parsing)
+    private Executor parseExecutor;
+    // pool for chunked parsing and parallel merge
+    private ForkJoinPool forkJoinPool;
+    // subtree size (lines) starting from which subtrees merged in parallel (0 - disabled)
+    private int parallelMergeThreshold;
+    // merge plans by current config structure hash (null - plans not used)
+    private Map<Long, MergePlan> mergePlans;
 
     /**
      * Instance created through the {@link ru.vyarus.yaml.updater.UpdateConfig.Configurator} instance.
@@ -118,6 +135,58 @@ public final class UpdateConfig {
         return dryRun;
     }
 
+    /**
+     * @return current config file size (in bytes) starting from which file is read with memory mapping or 0 if
+     * mapped read is disabled
+     */
+    public long getMappedReadThreshold() {
+        return mappedReadThreshold;
+    }
+
+    /**
+     * @return config size (in bytes) starting from which config is parsed by chunks in parallel or 0 if chunked
+     * parsing is disabled
+     */
+    public long getChunkedParseThreshold() {
+        return chunkedParseThreshold;
+    }
+
+    /**
+     * @return snakeyaml components used for parsing (might be shared default engine if nothing configured)
+     */
+    public YamlParserEngine getParserEngine() {
+        return parserEngine;
+    }
+
+    /**
+     * @return executor for parallel configs parsing or null for sequential parsing
+     */
+    public Executor getParseExecutor() {
+        return parseExecutor;
+    }
+
+    /**
+     * @return fork join pool for parallel processing (common pool if nothing configured)
+     */
+    public ForkJoinPool getForkJoinPool() {
+        return forkJoinPool;
+    }
+
+    /**
+     * @return subtree size (lines count in both configs) starting from which subtrees are merged in parallel or 0
+     * if parallel merge is disabled
+     */
+    public int getParallelMergeThreshold() {
+        return parallelMergeThreshold;
+    }
+
+    /**
+     * @return merge plans cache (by current config structure hash) or null if plans not used
+     */
+    public Map<Long, MergePlan> getMergePlans() {
+        return mergePlans;
+    }
+
     /**
      * Updater configurator. Class might be extended to extend functionality
      * (see {@link ru.vyarus.yaml.updater.profile.TestConfigurator} as example).
@@ -307,6 +376,140 @@ public final class UpdateConfig {
             return self();
         }
 
+        /**
+         * Large current configuration could be read with memory mapping: in this case, file is decoded just once
+         * (directly from the page cache) and then the same content is used by both parsers (instead of reading file
+         * twice). For small files normal read is faster.
+         * <p>
+         * Disabled by default. Note that on windows mapped file could be locked until buffer is garbage collected.
+         *
+         * @param threshold file size in bytes starting from which memory mapping should be used (0 to disable)
+         * @return builder instance for chained calls
+         */
+        public T mappedReadThreshold(final long threshold) {
+            if (threshold < 0) {
+                throw new IllegalArgumentException("Threshold can't be negative: " + threshold);
+            }
+            config.mappedReadThreshold = threshold;
+            return self();
+        }
+
+        /**
+         * Huge configs could be split by root properties into chunks, parsed in parallel (with fork join pool, see
+         * {@link #forkJoinPool(ForkJoinPool)}) and then stitched back (see
+         * {@link ru.vyarus.yaml.updater.parse.fused.ChunkedReader}). Applied to both current and update configs.
+         * Current config is read with memory mapping in this case (decoded just once). For small files normal
+         * parsing is faster.
+         * <p>
+         * Disabled by default.
+         *
+         * @param threshold config size in bytes starting from which chunked parsing should be used (0 to disable)
+         * @return builder instance for chained calls
+         */
+        public T chunkedParseThreshold(final long threshold) {
+            if (threshold < 0) {
+                throw new IllegalArgumentException("Threshold can't be negative: " + threshold);
+            }
+            config.chunkedParseThreshold = threshold;
+            return self();
+        }
+
+        /**
+         * Snakeyaml components are created once per engine (and cached per thread), so the same engine could be
+         * used for all updates when many configurations updated in one jvm. Also, custom engine could be used to
+         * apply specific snakeyaml loader options.
+         * <p>
+         * By default, shared engine with default options is used
+         * ({@link ru.vyarus.yaml.updater.parse.struct.YamlParserEngine#getDefault()}).
+         *
+         * @param engine engine to use for parsing (null ignored)
+         * @return builder instance for chained calls
+         */
+        public T parserEngine(final YamlParserEngine engine) {
+            if (engine != null) {
+                config.parserEngine = engine;
+            }
+            return self();
+        }
+
+        /**
+         * Current and update configs are completely independent until merge, so they could be parsed in parallel:
+         * current config is read from disk, parsed and validated using provided executor, while update config is
+         * parsed in the calling thread. Useful for large configs on multi-core hosts (for small configs thread
+         * switching overhead would be comparable with parsing time).
+         * <p>
+         * Update config errors are still reported first. Listener is always called from the calling thread (in the
+         * same order as for sequential parsing).
+         * <p>
+         * By default, configs are parsed sequentially.
+         *
+         * @param executor executor to parse current config with (null for sequential parsing)
+         * @return builder instance for chained calls
+         */
+        public T parseExecutor(final Executor executor) {
+            config.parseExecutor = executor;
+            return self();
+        }
+
+        /**
+         * Fork join pool used for chunked parsing (see {@link #chunkedParseThreshold(long)}) and parallel merge (see
+         * {@link #parallelMergeThreshold(int)}). Custom pool could be used to limit parallelism or to not interfere
+         * with other tasks in common pool.
+         * <p>
+         * By default, common pool is used ({@link ForkJoinPool#commonPool()}).
+         *
+         * @param pool pool to use (null ignored)
+         * @return builder instance for chained calls
+         */
+        public T forkJoinPool(final ForkJoinPool pool) {
+            if (pool != null) {
+                config.forkJoinPool = pool;
+            }
+            return self();
+        }
+
+        /**
+         * Matched subtrees (properties, present in both configs, and matched object list items) are merged
+         * independently, so large subtrees could be merged in parallel (with fork join pool, see
+         * {@link #forkJoinPool(ForkJoinPool)} and {@link ru.vyarus.yaml.updater.update.TreeMerger}). Merge result
+         * is the same as for sequential merge. Useful for configs with many large sections on multi-core hosts
+         * (small subtrees are always merged sequentially: task overhead would be bigger than merge time).
+         * <p>
+         * Disabled by default.
+         *
+         * @param threshold subtree size (lines count in both configs) starting from which subtree is merged in
+         *                  parallel (0 to disable)
+         * @return builder instance for chained calls
+         */
+        public T parallelMergeThreshold(final int threshold) {
+            if (threshold < 0) {
+                throw new IllegalArgumentException("Threshold can't be negative: " + threshold);
+            }
+            config.parallelMergeThreshold = threshold;
+            return self();
+        }
+
+        /**
+         * When the same update file is applied to many configs, differing only in values, merge could be
+         * computed once: merge is recorded into plan ({@link ru.vyarus.yaml.updater.update.MergePlan}), stored
+         * in provided map by current config structure hash (property names, without values). Plan is applied
+         * directly to configs with the same structure hash (and the same update file). Plans are serializable,
+         * so map could be stored between runs. Map is modified by updater (use concurrent map if updaters run
+         * in parallel).
+         * <p>
+         * Merge with recording does not skip identical subtrees (plan must not depend on current config values).
+         * Merge result is always validated as usual.
+         * <p>
+         * Not used by default.
+         *
+         * @param plans merge plans cache (null to disable)
+         * @return builder instance for chained calls
+         */
+        public T mergePlans(final Map<Long, MergePlan> plans) {
+            config.mergePlans = plans;
+            return self();
+        }
+
         /**
          * Performs configuration migration.
          *
@@ -318,6 +521,12 @@ public final class UpdateConfig {
                 // to avoid null checks everywhere
                 config.listener = new UpdateListenerAdapter();
             }
+            if (config.parserEngine == null) {
+                config.parserEngine = YamlParserEngine.getDefault();
+            }
+            if (config.forkJoinPool == null) {
+                config.forkJoinPool = ForkJoinPool.commonPool();
+            }
             config.listener.configured(config);
             return new YamlUpdater(config).execute();
         }
@@ -2,13 +2,18 @@ package ru.vyarus.yaml.updater;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import ru.vyarus.yaml.updater.parse.comments.CommentsReader;
 import ru.vyarus.yaml.updater.parse.comments.CommentsWriter;
 import ru.vyarus.yaml.updater.parse.comments.model.CmtNode;
 import ru.vyarus.yaml.updater.parse.comments.model.CmtTree;
 import ru.vyarus.yaml.updater.parse.common.YamlModelUtils;
+import ru.vyarus.yaml.updater.parse.common.model.KeysTable;
 import ru.vyarus.yaml.updater.parse.common.model.TreeNode;
+import ru.vyarus.yaml.updater.parse.common.model.YamlPath;
+import ru.vyarus.yaml.updater.parse.fused.ChunkedReader;
+import ru.vyarus.yaml.updater.parse.fused.FusedReader;
+import ru.vyarus.yaml.updater.parse.fused.ParsedTrees;
 import ru.vyarus.yaml.updater.parse.struct.StructureReader;
+import ru.vyarus.yaml.updater.parse.struct.model.CompactStructTree;
 import ru.vyarus.yaml.updater.parse.struct.model.StructNode;
 import ru.vyarus.yaml.updater.parse.struct.model.StructTree;
 import ru.vyarus.yaml.updater.profile.ProdConfigurator;
@@ -16,6 +21,7 @@ import ru.vyarus.yaml.updater.profile.TestConfigurator;
 import ru.vyarus.yaml.updater.report.UpdateReport;
 import ru.vyarus.yaml.updater.update.CommentsParserValidator;
 import ru.vyarus.yaml.updater.update.EnvSupport;
+import ru.vyarus.yaml.updater.update.MergePlan;
 import ru.vyarus.yaml.updater.update.TreeMerger;
 import ru.vyarus.yaml.updater.update.UpdateResultValidator;
 import ru.vyarus.yaml.updater.util.FileUtils;
@@ -29,6 +35,11 @@ import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Yaml configuration merger preserving comments. Use two yaml parsers: snakeyaml for self-validation and
@@ -87,6 +98,8 @@ public class YamlUpdater {
     private CmtTree updateTree;
 
     private final UpdateReport report;
+    // property names shared by all trees (current, update and merged)
+    private final KeysTable keys = new KeysTable();
 
     public YamlUpdater(final UpdateConfig config) {
         this.config = config;
@@ -153,8 +166,7 @@ public class YamlUpdater {
      */
     public UpdateReport execute() {
         try {
-            prepareNewConfig();
-            prepareCurrentConfig();
+            prepareConfigs();
             merge();
             validateResult();
             backupAndReplace();
@@ -178,16 +190,23 @@ public class YamlUpdater {
         // size after variables applied
         report.setUpdateSize(source.getBytes(StandardCharsets.UTF_8).length);
 
+        final ParsedTrees trees;
         try {
-            // read structure first to validate correctness!
-            updateStructure = StructureReader.read(source);
-            updateTree = CommentsReader.read(source);
+            if (isChunkedParse(report.getUpdateSize())) {
+                logger.debug("Using chunked parse for large configuration");
+                trees = ChunkedReader.read(source, config.getParserEngine(), config.getForkJoinPool(), 0, keys);
+            } else {
+                // both parsers in one pass (snakeyaml errors reported first to validate correctness!)
+                trees = FusedReader.read(source, config.getParserEngine(), keys);
+            }
         } catch (Exception ex) {
             throw new IllegalStateException("Failed to parse update config file", ex);
         }
+        updateStructure = trees.getStructure();
+        updateTree = trees.getComments();
         try {
-            // validate comments parser correctness using snakeyaml result
-            CommentsParserValidator.validate(updateTree, updateStructure);
+            // validate comments parser correctness using snakeyaml result (already done if trees are equal)
+            validateTrees(trees);
         } catch (Exception ex) {
             throw new IllegalStateException("Model validation fail: comments parser tree does not match snakeyaml's "
                     + "parse tree for update config", ex);
@@ -199,25 +218,78 @@ public class YamlUpdater {
         config.getListener().updateConfigParsed(updateTree, updateStructure);
     }
 
-    private void prepareCurrentConfig() throws Exception {
-        final File currentCfg = config.getCurrent();
-        if (currentCfg.exists()) {
-            logger.debug("Parsing current configuration file ({})...", currentCfg.getAbsolutePath());
-            report.setBeforeSize(currentCfg.length());
+    private void prepareConfigs() throws Exception {
+        final Executor executor = config.getParseExecutor();
+        if (executor == null) {
+            prepareNewConfig();
+            prepareCurrentConfig(parseCurrentConfig());
+        } else {
+            // current config read and parsed in parallel with update config (configs are independent until merge)
+            final CompletableFuture<ParsedTrees> current =
+                    CompletableFuture.supplyAsync(this::parseCurrentConfig, executor);
             try {
-                // read current file with two parsers (snake first to make sure file is valid)
-                currentStructure = StructureReader.read(currentCfg);
-                currentTree = CommentsReader.read(currentCfg);
-            } catch (Exception ex) {
-                throw new IllegalStateException("Failed to parse current config file", ex);
+                // update config errors reported first (as in sequential mode)
+                prepareNewConfig();
+            } finally {
+                // cancel can't stop already running parsing (which writes report), so always wait for it
+                // (current config errors are ignored here: update config error must not be masked)
+                current.handle((res, ex) -> res).join();
             }
+            final ParsedTrees trees;
             try {
-                // validate comments parser correctness using snakeyaml result
-                CommentsParserValidator.validate(currentTree, currentStructure);
-            } catch (Exception ex) {
-                throw new IllegalStateException("Model validation fail: comments parser tree does not match "
-                        + "snakeyaml's parse tree for current config: " + currentCfg.getAbsolutePath(), ex);
+                trees = current.join();
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException ? (RuntimeException) ex.getCause() : ex;
+            }
+            prepareCurrentConfig(trees);
+        }
+    }
+
+    /**
+     * Current config parsing and validation. Might be called in a separate thread (must not affect update config
+     * state).
+     *
+     * @return parsed trees or null if current config doesn't exist
+     */
+    private ParsedTrees parseCurrentConfig() {
+        final File currentCfg = config.getCurrent();
+        if (!currentCfg.exists()) {
+            return null;
+        }
+        logger.debug("Parsing current configuration file ({})...", currentCfg.getAbsolutePath());
+        report.setBeforeSize(currentCfg.length());
+        final ParsedTrees trees;
+        try {
+            // read current file with two parsers in one pass (snakeyaml errors first to make sure file is valid)
+            final long threshold = config.getMappedReadThreshold();
+            if (isChunkedParse(report.getBeforeSize())) {
+                logger.debug("Using chunked parse for large configuration file");
+                trees = ChunkedReader.read(FileUtils.readMapped(currentCfg), config.getParserEngine(),
+                        config.getForkJoinPool(), 0, keys);
+            } else if (threshold > 0 && report.getBeforeSize() >= threshold) {
+                logger.debug("Using memory mapped read for large configuration file");
+                // file decoded only once and used by both parsers
+                trees = FusedReader.read(FileUtils.readMapped(currentCfg), config.getParserEngine(), keys);
+            } else {
+                trees = FusedReader.read(currentCfg, config.getParserEngine(), keys);
             }
+        } catch (Exception ex) {
+            throw new IllegalStateException("Failed to parse current config file", ex);
+        }
+        try {
+            // validate comments parser correctness using snakeyaml result (already done if trees are equal)
+            validateTrees(trees);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Model validation fail: comments parser tree does not match "
+                    + "snakeyaml's parse tree for current config: " + currentCfg.getAbsolutePath(), ex);
+        }
+        return trees;
+    }
+
+    private void prepareCurrentConfig(final ParsedTrees trees) throws IOException {
+        if (trees != null) {
+            currentStructure = trees.getStructure();
+            currentTree = trees.getComments();
             report.setBeforeLinesCnt(currentTree.getLinesCnt());
 
             removeProperties();
@@ -225,13 +297,25 @@ public class YamlUpdater {
                     report.getBeforeSize(), report.getBeforeLinesCnt());
             config.getListener().currentConfigParsed(updateTree, updateStructure);
         } else {
-            logger.info("Current configuration doesn't exist: {}", currentCfg.getAbsolutePath());
+            logger.info("Current configuration doesn't exist: {}", config.getCurrent().getAbsolutePath());
         }
 
         // tmp file used to catch possible writing errors and only then override old file
         work = File.createTempFile("merge-result", ".yml");
     }
 
+    private boolean isChunkedParse(final long size) {
+        final long threshold = config.getChunkedParseThreshold();
+        return threshold > 0 && size >= threshold;
+    }
+
+    private void validateTrees(final ParsedTrees trees) {
+        if (!trees.isValidated()) {
+            // trees are different: producing detailed error
+            CommentsParserValidator.validate(trees.getComments(), trees.getStructure());
+        }
+    }
+
     private void removeProperties() {
         // removing props
         for (String path : config.getDeleteProps()) {
@@ -254,45 +338,55 @@ public class YamlUpdater {
     private boolean removeProperty(final String prop) {
         final CmtNode node = currentTree.find(prop);
         if (node != null) {
-            logger.info("Removing configuration property: {}", prop);
-            // register it before actual remove for proper index rendering in report
-            report.addRemoved(node);
-            // for root level property, it would not point to tree object
-            final TreeNode<CmtNode> root = node.getRoot() == null ? currentTree : node.getRoot();
-
-            // remove in both trees because struct tree is used for result validation
-            // (trees are equal (validated) so can't have different branches)
-            final StructNode str = currentStructure.find(prop);
-            final TreeNode<StructNode> rootStr = str.getRoot() == null ? currentStructure : str.getRoot();
-            rootStr.getChildren().remove(str);
-
-            if (node.getRoot() != null && root.getChildren().size() == 1) {
-                // if we removed all children then removing root property to avoid logic mistakes treating
-                // it as normal property and not as container (detected by children presence)
-                final String yamlPath = root.getYamlPath();
-                logger.warn("Container property '{}' remains empty after '{}' removal - removing it to "
-                        + "not mistakenly treat it as simple property", yamlPath, prop);
-                // cleanup inner properties removes from report
-                report.getRemoved().removeIf(pair -> pair.getPath().startsWith(yamlPath));
-                removeProperty(yamlPath);
-            } else {
-                // remove node from root only when top node not removed itself because otherwise
-                // it would be impossible to show in report list item with property on the same line
-                root.getChildren().remove(node);
-            }
+            removeNode(node);
         }
         return node != null;
     }
 
+    private void removeNode(final CmtNode node) {
+        // node path is exact (string path would be ambiguous for property name with separator)
+        final YamlPath path = node.getPath();
+        logger.info("Removing configuration property: {}", path);
+        // register it before actual remove for proper index rendering in report
+        report.addRemoved(node);
+        // for root level property, it would not point to tree object
+        final TreeNode<CmtNode> root = node.getRoot() == null ? currentTree : node.getRoot();
+
+        // remove in both trees because struct tree is used for result validation
+        // (trees are equal (validated) so can't have different branches)
+        final StructNode str = currentStructure.find(path);
+        final TreeNode<StructNode> rootStr = str.getRoot() == null ? currentStructure : str.getRoot();
+        rootStr.getChildren().remove(str);
+
+        if (node.getRoot() != null && root.getChildren().size() == 1) {
+            // if we removed all children then removing root property to avoid logic mistakes treating
+            // it as normal property and not as container (detected by children presence)
+            final String yamlPath = root.getYamlPath();
+            logger.warn("Container property '{}' remains empty after '{}' removal - removing it to "
+                    + "not mistakenly treat it as simple property", yamlPath, path);
+            // cleanup inner properties removes from report
+            report.getRemoved().removeIf(pair -> pair.getPath().startsWith(yamlPath));
+            removeNode(node.getRoot());
+        } else {
+            // remove node from root only when top node not removed itself because otherwise
+            // it would be impossible to show in report list item with property on the same line
+            root.getChildren().remove(node);
+        }
+    }
+
     private void merge() {
+        if (currentStructure != null && config.isValidateResult()) {
+            // structure trees are not modified after listeners notification (used only for result validation)
+            updateStructure = CompactStructTree.of(updateStructure);
+            currentStructure = CompactStructTree.of(currentStructure);
+        }
         if (currentTree == null) {
             logger.debug("No need for merge: copying new configuration");
             // just copy new
             currentTree = updateTree;
         } else {
             logger.debug("Merging configurations...");
-            // merge
-            TreeMerger.merge(currentTree, updateTree);
+            mergeTrees();
             logger.info("Configuration merged");
             reportAddedNodes(currentTree);
         }
@@ -301,6 +395,25 @@ public class YamlUpdater {
         CommentsWriter.write(currentTree, work);
     }
 
+    private void mergeTrees() {
+        final Map<Long, MergePlan> plans = config.getMergePlans();
+        final ForkJoinPool pool = config.getForkJoinPool();
+        final int threshold = config.getParallelMergeThreshold();
+        if (plans == null) {
+            TreeMerger.merge(currentTree, updateTree, pool, threshold);
+            return;
+        }
+        final long structureHash = MergePlan.structureHash(currentTree);
+        final MergePlan plan = plans.get(structureHash);
+        // plan could be created for different update file
+        if (plan != null && plan.getUpdateHash() == MergePlan.updateHash(updateTree)) {
+            logger.debug("Applying cached merge plan");
+            plan.apply(currentTree, keys);
+        } else {
+            plans.put(structureHash, TreeMerger.mergeWithPlan(currentTree, updateTree, pool, threshold));
+        }
+    }
+
     private void reportAddedNodes(final TreeNode<CmtNode> root) {
         for (CmtNode node : root.getChildren()) {
             // searching first added node (could be added value or added subtree)
@@ -318,7 +431,7 @@ public class YamlUpdater {
         logger.debug("Validating merged result");
         try {
             // make sure updated file is valid
-            final StructTree updated = StructureReader.read(work);
+            final StructTree updated = StructureReader.read(work, config.getParserEngine(), keys);
             // if not initial copying (current tree can't be used here as it's already replaced by new config)
             if (currentStructure != null) {
                 if (config.isValidateResult()) {
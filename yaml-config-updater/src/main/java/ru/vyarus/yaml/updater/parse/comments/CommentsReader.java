@@ -2,17 +2,27 @@ package ru.vyarus.yaml.updater.parse.comments;
 
 import ru.vyarus.yaml.updater.parse.comments.model.CmtNode;
 import ru.vyarus.yaml.updater.parse.comments.model.CmtTree;
-import ru.vyarus.yaml.updater.parse.comments.util.CountingIterator;
+import ru.vyarus.yaml.updater.parse.comments.model.SourceLines;
+import ru.vyarus.yaml.updater.parse.comments.util.LinesIterator;
 import ru.vyarus.yaml.updater.parse.comments.util.MultilineValue;
+import ru.vyarus.yaml.updater.parse.comments.util.TextLinesIterator;
+import ru.vyarus.yaml.updater.parse.comments.util.Utf8Text;
 import ru.vyarus.yaml.updater.parse.common.YamlModelUtils;
+import ru.vyarus.yaml.updater.parse.common.model.KeysTable;
 
 import java.io.File;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.text.CharacterIterator;
-import java.text.StringCharacterIterator;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -24,15 +34,19 @@ import java.util.List;
  * remembered completely to exactly reproduce original structure).
  * <p>
  * Parser assumed to be used on valid yaml file only (and so snakeyaml must be used first to validate file).
+ * <p>
+ * File, reader and channel sources are parsed in streaming mode: lines are read one by one, so file content is never
+ * completely loaded into memory (only the resulted tree).
+ * <p>
+ * When yaml is already in memory (string source), nodes would not store lines as separate strings: instead, line
+ * offsets in the source string are stored (see {@link SourceLines}) to reduce tree size. UTF-8 bytes could be parsed
+ * without decoding (see {@link #read(java.nio.ByteBuffer)}).
  *
  * @author Vyacheslav Rusakov
  * @since 22.04.2021
  */
 public final class CommentsReader {
 
-    // assume explicit sequence and object notion as non parsable (keep and store as-is)
-    private static final List<Character> VALUE_BOUNDARY_START = Arrays.asList('{', '[');
-
     private CommentsReader() {
     }
 
@@ -41,80 +55,284 @@ public final class CommentsReader {
      * @return parsed yaml model tree
      */
     public static CmtTree read(final File yaml) {
-        try {
-            return readLines(Files.readAllLines(yaml.toPath(), StandardCharsets.UTF_8));
+        try (Reader reader = Files.newBufferedReader(yaml.toPath(), StandardCharsets.UTF_8)) {
+            return readStream(reader);
         } catch (Exception e) {
             throw new IllegalStateException("Failed to read file: " + yaml.getAbsolutePath(), e);
         }
     }
 
     /**
+     * Streaming read: lines are processed as they are read. Reader is not closed.
+     *
+     * @param yaml yaml content reader
+     * @return parsed yaml model tree
+     */
+    public static CmtTree read(final Reader yaml) {
+        try {
+            return readStream(yaml);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to read yaml", e);
+        }
+    }
+
+    /**
+     * Streaming read from channel (assuming UTF-8 content). Channel is not closed.
+     *
+     * @param yaml yaml content channel
+     * @return parsed yaml model tree
+     */
+    public static CmtTree read(final ReadableByteChannel yaml) {
+        try {
+            return readStream(Channels.newReader(yaml, StandardCharsets.UTF_8.newDecoder(), -1));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to read yaml", e);
+        }
+    }
+
+    /**
+     * Node values and comments would reference source string (without copying lines).
+     *
      * @param yaml yaml string
      * @return parsed yaml model tree
      */
     public static CmtTree read(final String yaml) {
+        return read(yaml, new KeysTable());
+    }
+
+    /**
+     * @param yaml yaml string
+     * @param keys property names symbol table
+     * @return parsed yaml model tree
+     * @see #read(String)
+     */
+    public static CmtTree read(final String yaml, final KeysTable keys) {
         try {
-            return readLines(Arrays.asList(yaml.split("\\r?\\n")));
+            final TextLinesIterator lines = new TextLinesIterator(yaml, false);
+            return readLines(new Context(lines, null, keys));
         } catch (Exception e) {
             throw new IllegalStateException("Failed to read yaml string", e);
         }
     }
 
-    private static CmtTree readLines(final List<String> lines) {
-        final Context context = new Context();
-        readNodes(new CountingIterator<>(lines.iterator()), context);
-        return new CmtTree(context.rootNodes, lines.size());
+    /**
+     * Incremental re-parse of changed yaml: root sections (root node with top comment and sub nodes) of previously
+     * parsed tree, which are found unchanged in the new text, are moved into the new tree (with shifted line numbers)
+     * and only changed parts are actually parsed. Resulted tree is exactly the same as after {@link #read(String)}
+     * (so could be validated with {@link ru.vyarus.yaml.updater.update.CommentsParserValidator}).
+     * <p>
+     * Unchanged sections are detected by root node line hash and then compared line by line with section lines in
+     * the previous source (previous tree must be parsed from text, not stream). Previous tree must be a not modified
+     * parse result and it is not usable after the call (nodes moved).
+     *
+     * @param previous previous parse result
+     * @param yaml     changed yaml string
+     * @return parsed yaml model tree
+     */
+    public static CmtTree reparse(final CmtTree previous, final String yaml) {
+        try {
+            final Context context = new Context(new TextLinesIterator(yaml, false), null, new KeysTable());
+            context.sections = new ReusableSections(previous);
+            return readLines(context);
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to read yaml string", e);
+        }
     }
 
-    private static void readNodes(final CountingIterator<String> lines, final Context context) {
-        while (lines.hasNext()) {
-            final String line = lines.next();
-            try {
-                context.lineNum = lines.getPosition();
-                processLine(line, context);
-            } catch (Exception ex) {
-                throw new IllegalStateException("Error parsing line " + lines.getPosition(), ex);
-            }
+    /**
+     * Read already decoded file content (e.g. memory mapped file, see
+     * {@link ru.vyarus.yaml.updater.util.FileUtils#readMapped(java.io.File)}). Lines are split exactly as for
+     * {@link #read(java.io.File)}. Like for string source, node values and comments would reference provided buffer
+     * (without copying lines), so the same buffer could be used for {@link
+     * ru.vyarus.yaml.updater.parse.struct.StructureReader#read(java.nio.CharBuffer)}.
+     * <p>
+     * Buffer position is not changed.
+     *
+     * @param yaml yaml file content
+     * @return parsed yaml model tree
+     */
+    public static CmtTree read(final CharBuffer yaml) {
+        return read(yaml, new KeysTable());
+    }
+
+    /**
+     * @param yaml yaml file content
+     * @param keys property names symbol table
+     * @return parsed yaml model tree
+     * @see #read(java.nio.CharBuffer)
+     */
+    public static CmtTree read(final CharBuffer yaml, final KeysTable keys) {
+        try {
+            final TextLinesIterator lines = new TextLinesIterator(yaml.duplicate(), true);
+            return readLines(new Context(lines, null, keys));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to read yaml", e);
+        }
+    }
+
+    /**
+     * Byte-level read of UTF-8 content (e.g. memory mapped file bytes, see
+     * {@link ru.vyarus.yaml.updater.util.FileUtils#readMappedBytes(java.io.File)}). Yaml structure is detected
+     * directly on bytes (see {@link Utf8Text}): content is not decoded, only property names and lines, which are
+     * actually requested, are decoded. Lines are split exactly as for {@link #read(java.io.File)}. Node values and
+     * comments would reference provided buffer.
+     * <p>
+     * Buffer position is not changed.
+     *
+     * @param yaml yaml file content bytes
+     * @return parsed yaml model tree
+     */
+    public static CmtTree read(final ByteBuffer yaml) {
+        try {
+            final TextLinesIterator lines = new TextLinesIterator(new Utf8Text(yaml), true);
+            return readLines(new Context(lines, null, new KeysTable()));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to read yaml", e);
+        }
+    }
+
+    /**
+     * Incremental parsing: lines are parsed only when the next node is requested (see {@link NodesReader}).
+     * Node values and comments would reference source string (without copying lines).
+     *
+     * @param yaml yaml string
+     * @return nodes reader
+     */
+    public static NodesReader readIncrementally(final String yaml) {
+        return readIncrementally(yaml, new KeysTable());
+    }
+
+    /**
+     * @param yaml yaml string
+     * @param keys property names symbol table
+     * @return nodes reader
+     * @see #readIncrementally(String)
+     */
+    public static NodesReader readIncrementally(final String yaml, final KeysTable keys) {
+        final TextLinesIterator lines = new TextLinesIterator(yaml, false);
+        return new NodesReader(new Context(lines, null, keys));
+    }
+
+    /**
+     * Incremental parsing of already decoded file content (see {@link #read(java.nio.CharBuffer)}).
+     *
+     * @param yaml yaml file content
+     * @return nodes reader
+     */
+    public static NodesReader readIncrementally(final CharBuffer yaml) {
+        return readIncrementally(yaml, new KeysTable());
+    }
+
+    /**
+     * @param yaml yaml file content
+     * @param keys property names symbol table
+     * @return nodes reader
+     * @see #readIncrementally(java.nio.CharBuffer)
+     */
+    public static NodesReader readIncrementally(final CharBuffer yaml, final KeysTable keys) {
+        final TextLinesIterator lines = new TextLinesIterator(yaml.duplicate(), true);
+        return new NodesReader(new Context(lines, null, keys));
+    }
+
+    /**
+     * Incremental byte-level parsing of UTF-8 content (see {@link #read(java.nio.ByteBuffer)}).
+     *
+     * @param yaml yaml file content bytes
+     * @return nodes reader
+     */
+    public static NodesReader readIncrementally(final ByteBuffer yaml) {
+        final TextLinesIterator lines = new TextLinesIterator(new Utf8Text(yaml), true);
+        return new NodesReader(new Context(lines, null, new KeysTable()));
+    }
+
+    /**
+     * Incremental streaming parsing. Reader is not closed.
+     *
+     * @param yaml yaml content reader
+     * @return nodes reader
+     */
+    public static NodesReader readIncrementally(final Reader yaml) {
+        return readIncrementally(yaml, new KeysTable());
+    }
+
+    /**
+     * @param yaml yaml content reader
+     * @param keys property names symbol table
+     * @return nodes reader
+     * @see #readIncrementally(java.io.Reader)
+     */
+    public static NodesReader readIncrementally(final Reader yaml, final KeysTable keys) {
+        return new NodesReader(new Context(null, new LinesIterator(yaml), keys));
+    }
+
+    private static CmtTree readStream(final Reader reader) {
+        return readLines(new Context(null, new LinesIterator(reader), new KeysTable()));
+    }
+
+    private static CmtTree readLines(final Context context) {
+        readNodes(context);
+        // all lines consumed, so current line number is the overall lines count
+        return new CmtTree(context.rootNodes, context.lineNum);
+    }
+
+    private static void readNodes(final Context context) {
+        while (context.nextLine()) {
+            readLine(context);
         }
         context.finish();
     }
 
-    @SuppressWarnings({"checkstyle:NeedBraces", "checkstyle:EmptyStatement", "checkstyle:MultipleStringLiterals",
-            "PMD.ControlStatementBraces", "PMD.EmptyControlStatement"})
-    private static void processLine(final String line, final Context context) {
-        final CharacterIterator chars = new StringCharacterIterator(line);
+    private static void readLine(final Context context) {
         try {
-            while (chars.current() == ' ' && chars.next() != CharacterIterator.DONE) ;
-            final int whitespace = chars.getIndex();
-            final boolean whitespaceOnly = chars.getIndex() == chars.getEndIndex();
-            if (context.detectMultilineValue(whitespace, whitespaceOnly, line)) {
+            processLine(context);
+        } catch (Exception ex) {
+            throw new IllegalStateException("Error parsing line " + context.lineNum, ex);
+        }
+    }
+
+    /**
+     * Line is scanned by index (in the source text, if available), without line string creation.
+     *
+     * @param context parsing context with the current line
+     */
+    private static void processLine(final Context context) {
+        final int length = context.length();
+        int pos = 0;
+        while (pos < length && context.charAt(pos) == ' ') {
+            pos++;
+        }
+        context.pos = pos;
+        try {
+            final int whitespace = pos;
+            final boolean whitespaceOnly = pos == length;
+            if (context.detectMultilineValue(whitespace, whitespaceOnly)) {
                 // multiline value continues
                 return;
             }
+            if (context.sections != null && whitespace == 0 && !whitespaceOnly && context.charAt(0) != '#'
+                    && context.reuseSection()) {
+                // unchanged root section of the previous tree
+                return;
+            }
             if (whitespaceOnly) {
                 // whitespace only: consider this as comment for simplicity to preserve overall structure
                 // NOTE this might be the second line of flow multiline value, which is impossible to know before
                 // looking next line
-                context.comment(line);
+                context.comment();
             } else {
-                parseValue(line, context, chars, whitespace);
+                parseValue(context, whitespace);
             }
         } catch (Exception ex) {
-            throw new IllegalStateException("Error parsing line on position " + (chars.getIndex() + 1) + ": "
-                    + visualizeError(line, chars), ex);
+            throw new IllegalStateException("Error parsing line on position " + (context.pos + 1) + ": "
+                    + visualizeError(context.line(), context.pos), ex);
         }
     }
 
-    @SuppressWarnings({"checkstyle:NeedBraces", "checkstyle:EmptyStatement",
-            "PMD.ControlStatementBraces", "PMD.EmptyControlStatement"})
-    private static void parseValue(final String line,
-                                   final Context context,
-                                   final CharacterIterator chars,
-                                   final int padding) {
-        switch (chars.current()) {
+    private static void parseValue(final Context context, final int padding) {
+        switch (context.charAt(padding)) {
             case '#':
                 // commented line (stored as is)
-                context.comment(line);
+                context.comment();
                 break;
             case '-':
                 // list value
@@ -123,16 +341,22 @@ public final class CommentsReader {
                 // In case of empty dash, object encapsulated automatically
 
                 // skip whitespace after dash
-                while (chars.next() == ' ') ;
+                final int length = context.length();
+                int pos = padding + 1;
+                while (pos < length && context.charAt(pos) == ' ') {
+                    pos++;
+                }
+                context.pos = pos;
 
                 // property-like structure might be quoted (simple string)
+                // (explicit sequence and object notion assumed as non parsable: kept and stored as-is)
                 Prop lprop = null;
-                if (!VALUE_BOUNDARY_START.contains(chars.current())) {
-                    lprop = parseProperty(chars, line);
+                if (pos == length || context.charAt(pos) != '{' && context.charAt(pos) != '[') {
+                    lprop = parseProperty(context, pos);
                 }
                 if (lprop == null) {
                     // not a property (simple value); take everything after dash
-                    lprop = new Prop(padding, null, line.substring(padding + 1));
+                    lprop = new Prop(padding, null, padding + 1, length);
                 }
                 // first property in list item or list constant
                 context.listValue(padding, lprop);
@@ -140,12 +364,12 @@ public final class CommentsReader {
                 break;
             default:
                 // flow multiline is when string value continues on new line without special markers
-                if (!context.detectFlowMultiline(padding, line)) {
+                if (!context.detectFlowMultiline(padding)) {
                     // property
-                    final Prop prop = parseProperty(chars, line);
+                    final Prop prop = parseProperty(context, padding);
                     if (prop == null) {
                         // could be multiline starting with an empty line
-                        if (!context.detectEmptyFlowMultiline(padding, line)) {
+                        if (!context.detectEmptyFlowMultiline(padding)) {
                             throw new IllegalStateException("Property line expected, but no property found");
                         }
                     } else {
@@ -155,58 +379,75 @@ public final class CommentsReader {
         }
     }
 
-    private static Prop parseProperty(final CharacterIterator chars, final String line) {
-        // stream assumed to be set at the beginning of possible property (after list dash or after whitespace)
-        final int padding = chars.getIndex();
-        final int comment = line.indexOf('#', padding);
-        // colon must be followed with space (at least one) otherwise it's not a property name
-        final int split = findPropertySeparator(line, padding);
-        if (split < 0 || (comment > 0 && split > comment)) {
-            // no property marker or it is in comment part - not a property
-            return null;
-        }
-        // in cases when there is a whitespace between property name and colon - it's removed
-        final String name = line.substring(padding, split).trim();
-        // value may include in-line comment! pure value is not important
-        final String value = split + 1 == chars.getEndIndex() ? "" : line.substring(split + 1);
-        final Prop res = new Prop(padding, name, value);
-        // detecting multiline markers
-        res.multiline = MultilineValue.detect(value);
-        return res;
-    }
-
     /**
      * Property separator is colon, followed by whitespace or newline. For example {@code some:name} is not a property,
      * but string. Also, colon might be in property name: {@code na:me: value}. Property name might be quoted:
      * {@code "prop: name": value}. And may contain escaped quotes: {@code "some''s:name": value}.
+     * <p>
+     * Separator and comment start are searched in one pass. Comment before separator means no property.
      *
-     * @param line line to find property in
-     * @return separator (colon) position or -1 if not found
+     * @param context parsing context
+     * @param padding possible property start (after list dash or after whitespace)
+     * @return property or null if line is not a property
      */
-    private static int findPropertySeparator(final String line, final int padding) {
-        int from = 0;
-        if (line.length() > padding + 1) {
+    private static Prop parseProperty(final Context context, final int padding) {
+        final int length = context.length();
+        int from = padding;
+        if (length > padding + 1) {
             // check for quoted property name
-            final char possibleQuote = line.charAt(padding);
+            final char possibleQuote = context.charAt(padding);
             if (possibleQuote == '"' || possibleQuote == '\'') {
-                from = line.indexOf(possibleQuote, padding + 1);
+                int quote = padding + 1;
+                while (quote < length && context.charAt(quote) != possibleQuote) {
+                    quote++;
+                }
+                if (quote < length) {
+                    from = quote;
+                }
             }
         }
-        int pos;
-        while ((pos = line.indexOf(':', from)) > 0) {
-            // colon must follow by newline or whitespace, otherwise it's not a separator (single string)
-            if (pos == line.length() - 1 || line.charAt(pos + 1) == ' ') {
-                return pos;
+        int split = -1;
+        for (int i = padding; i < length; i++) {
+            final char c = context.charAt(i);
+            if (c == '#' && i > 0) {
+                // separator in comment part - not a property
+                return null;
+            }
+            if (c == ':' && i >= from) {
+                if (i == 0) {
+                    // line starting with colon is not a property
+                    return null;
+                }
+                // colon must follow by newline or whitespace, otherwise it's not a separator (single string)
+                if (i == length - 1 || context.charAt(i + 1) == ' ') {
+                    split = i;
+                    break;
+                }
             }
-            from = pos + 1;
         }
-        return -1;
+        if (split < 0) {
+            // no property marker - not a property
+            return null;
+        }
+        // in cases when there is a whitespace between property name and colon - it's removed
+        int nameStart = padding;
+        int nameEnd = split;
+        while (nameStart < nameEnd && context.charAt(nameStart) <= ' ') {
+            nameStart++;
+        }
+        while (nameEnd > nameStart && context.charAt(nameEnd - 1) <= ' ') {
+            nameEnd--;
+        }
+        // value may include in-line comment! pure value is not important
+        final Prop res = new Prop(padding, context.substring(nameStart, nameEnd), split + 1, length);
+        // detecting multiline markers
+        res.multiline = context.detectMultiline(split + 1, length);
+        return res;
     }
 
     @SuppressWarnings({"checkstyle:MultipleStringLiterals", "PMD.UseStringBufferForStringAppends"})
-    private static String visualizeError(final String line, final CharacterIterator chars) {
+    private static String visualizeError(final String line, final int index) {
         String demo = "\n\t" + line + "\n\t";
-        final int index = chars.getIndex();
         if (index > 1) {
             final char[] array = new char[index - 1];
             Arrays.fill(array, '-');
@@ -216,37 +457,152 @@ public final class CommentsReader {
         return demo;
     }
 
+    /**
+     * Incremental parser: lines are parsed only until the next node is found. Returned node is already attached to
+     * the tree, but its value might be not complete (multiline value) and children are not parsed yet.
+     * Trailing comments node is also returned (as {@link CmtNode#isCommentOnly()} node).
+     * <p>
+     * Parse errors are thrown as is (not wrapped).
+     */
+    public static final class NodesReader {
+        private final Context context;
+        private boolean finished;
+
+        private NodesReader(final Context context) {
+            this.context = context;
+            context.created = new ArrayDeque<>();
+        }
+
+        /**
+         * @return next parsed node or null if all lines processed
+         */
+        public CmtNode nextNode() {
+            // one line could produce two nodes (list item with property)
+            while (context.created.isEmpty() && !finished) {
+                if (context.nextLine()) {
+                    readLine(context);
+                } else {
+                    context.finish();
+                    finished = true;
+                }
+            }
+            return context.created.poll();
+        }
+
+        /**
+         * Parses remaining lines (if not parsed yet).
+         *
+         * @return parsed yaml model tree
+         */
+        public CmtTree getTree() {
+            while (nextNode() != null) {
+                // consume all nodes
+            }
+            // all lines consumed, so current line number is the overall lines count
+            return new CmtTree(context.rootNodes, context.lineNum);
+        }
+    }
+
+    /**
+     * Property found in line. Value is stored as line positions.
+     */
     @SuppressWarnings("checkstyle:VisibilityModifier")
     private static class Prop {
         final int padding;
         final String key;
-        final String value;
+        // value position in line (-1 if no value)
+        final int valueStart;
+        final int valueEnd;
         MultilineValue.Marker multiline;
 
-        Prop(final int padding, final String key, final String value) {
+        Prop(final int padding, final String key, final int valueStart, final int valueEnd) {
             this.padding = padding;
             this.key = key;
-            this.value = value;
-        }
-
-        @Override
-        public String toString() {
-            return key + ":" + value;
+            this.valueStart = valueStart;
+            this.valueEnd = valueEnd;
         }
     }
 
-    @SuppressWarnings("checkstyle:VisibilityModifier")
+    @SuppressWarnings({"checkstyle:VisibilityModifier", "PMD.TooManyMethods"})
     private static final class Context {
+        // source text for in-memory parsing (null for streaming)
+        final TextLinesIterator text;
+        // lines for streaming parsing (null for in-memory)
+        final Iterator<String> lines;
         int lineNum;
+        // current line: either position in source text or line string (streaming)
+        CharSequence src;
+        int lineStart;
+        int lineEnd;
+        String line;
+        // current parse position in line (for error reporting)
+        int pos;
         // storing only root nodes, sub nodes only required in context
         final List<CmtNode> rootNodes = new ArrayList<>();
         CmtNode current;
         // comments aggregator
-        final List<String> comments = new ArrayList<>();
+        List<String> comments;
         MultilineValue.Marker multiline;
+        // created nodes queue (only for incremental parsing)
+        Deque<CmtNode> created;
+        // previous tree sections (only for re-parse)
+        ReusableSections sections;
+        // property names symbol table
+        final KeysTable keys;
+
+        Context(final TextLinesIterator text, final Iterator<String> lines, final KeysTable keys) {
+            this.text = text;
+            this.lines = lines;
+            this.keys = keys;
+            this.comments = newLines();
+        }
 
-        public void comment(final String line) {
-            comments.add(line);
+        public boolean nextLine() {
+            if (text != null) {
+                if (!text.hasNext()) {
+                    return false;
+                }
+                // no line string created
+                text.advance();
+                src = text.getText();
+                lineStart = text.getLineStart();
+                lineEnd = text.getLineEnd();
+            } else {
+                if (!lines.hasNext()) {
+                    return false;
+                }
+                line = lines.next();
+                src = line;
+                lineStart = 0;
+                lineEnd = line.length();
+            }
+            lineNum++;
+            return true;
+        }
+
+        public int length() {
+            return lineEnd - lineStart;
+        }
+
+        public char charAt(final int index) {
+            return src.charAt(lineStart + index);
+        }
+
+        public String substring(final int start, final int end) {
+            return line != null ? line.substring(start, end)
+                    : src.subSequence(lineStart + start, lineStart + end).toString();
+        }
+
+        public String line() {
+            return line != null ? line : substring(0, length());
+        }
+
+        public MultilineValue.Marker detectMultiline(final int start, final int end) {
+            return MultilineValue.detect(src, lineStart + start, lineStart + end);
+        }
+
+        public void comment() {
+            addLine(comments, 0, length());
         }
 
         public void listValue(final int padding, final Prop prop) {
@@ -269,10 +625,13 @@ public final class CommentsReader {
             // null in case of trailing comment node
             if (prop != null) {
                 if (prop.key != null) {
-                    node.setKey(prop.key);
+                    node.setKey(prop.key, keys);
                 }
-                if (prop.value != null) {
-                    node.getValue().add(prop.value);
+                if (prop.valueStart >= 0) {
+                    if (text != null) {
+                        node.setValue(newLines());
+                    }
+                    addLine(node.getValue(), prop.valueStart, prop.valueEnd);
                 }
 
                 // remember multiline marker it it was detected in value
@@ -283,12 +642,15 @@ public final class CommentsReader {
             if (root == null) {
                 rootNodes.add(node);
             }
+            if (created != null) {
+                created.add(node);
+            }
         }
 
         @SuppressWarnings("PMD.InefficientEmptyStringCheck")
-        public boolean detectMultilineValue(final int padding, final boolean whitespaceOnly, final String line) {
+        public boolean detectMultilineValue(final int padding, final boolean whitespaceOnly) {
             if (multiline != null && (whitespaceOnly || multiline.indent <= padding)) {
-                current.getValue().add(line);
+                addLine(current.getValue(), 0, length());
                 if (multiline.indent == -1) {
                     // indent computed by the first line (multiline defined, but without number (| or >))
                     multiline.indent = padding;
@@ -320,30 +682,51 @@ public final class CommentsReader {
         }
 
         @SuppressWarnings("PMD.CollapsibleIfStatements")
-        public boolean detectFlowMultiline(final int padding, final String line) {
+        public boolean detectFlowMultiline(final int padding) {
             if (current != null) {
                 // will go there only once for multiline value as after this multiline would be already detected,
                 // aggregating everything below (by padding)
-                if (current.getPadding() < padding
-                        && MultilineValue.couldBeFlowMultiline(current.getValue().get(0))) {
-                    startFlowMultiline(padding, line);
+                if (current.getPadding() < padding && couldBeFlowMultiline(current.getValue())) {
+                    startFlowMultiline(padding);
                     return true;
                 }
             }
             return false;
         }
 
-        public boolean detectEmptyFlowMultiline(final int padding, final String line) {
+        public boolean detectEmptyFlowMultiline(final int padding) {
             // in contrast to the previous method this one handles case when first multiline line is empty line
             // in this case we have to check next line and only if it's not list value or property assume
             // multiline continuation
             if (current != null && current.getPadding() < padding) {
-                startFlowMultiline(padding, line);
+                startFlowMultiline(padding);
                 return true;
             }
             return false;
         }
 
+        /**
+         * Current line is a root node line. Looking for the same section in the previous tree: section top comment
+         * must be equal to aggregated comments and section lines must be equal to the following lines.
+         *
+         * @return true if previous tree section was reused
+         */
+        public boolean reuseSection() {
+            for (ReusableSections.Section section : sections.find(src, lineStart, lineEnd)) {
+                if (!section.used && section.isCommentMatch(comments) && matches(section)) {
+                    section.used = true;
+                    section.node.shiftLines(lineNum - section.node.getLineNum());
+                    // section node already contains the same comment
+                    comments = newLines();
+                    rootNodes.add(section.node);
+                    current = section.last;
+                    skipSection(section);
+                    return true;
+                }
+            }
+            return false;
+        }
+
         public void finish() {
             // save trailing comments as separate node
             if (!comments.isEmpty()) {
@@ -351,7 +734,16 @@ public final class CommentsReader {
             }
         }
 
-        private void startFlowMultiline(final int padding, final String line) {
+        private boolean couldBeFlowMultiline(final List<String> value) {
+            if (value instanceof SourceLines && !value.isEmpty() && ((SourceLines) value).isSourceLine(0)) {
+                // check directly in source
+                final SourceLines lines = (SourceLines) value;
+                return MultilineValue.couldBeFlowMultiline(lines.getSource(), lines.getStart(0), lines.getEnd(0));
+            }
+            return MultilineValue.couldBeFlowMultiline(value.get(0));
+        }
+
+        private void startFlowMultiline(final int padding) {
             if (!comments.isEmpty()) {
                 // edge case: when the second (and maybe few following) lines of flow multiline value
                 // are empty lines, it is impossible to detect as multiline, and they would go to comment
@@ -359,14 +751,92 @@ public final class CommentsReader {
                 current.getValue().addAll(comments);
                 comments.clear();
             }
-            current.getValue().add(line);
+            addLine(current.getValue(), 0, length());
             multiline = MultilineValue.flowMarker(padding);
         }
 
+        /**
+         * Section lines must be equal to lines, starting from the current line. Multiline value in the last section
+         * node must end exactly as it was: next line must not continue value and no whitespace lines could be
+         * appended to value.
+         *
+         * @param section previous tree section
+         * @return true if section could be reused
+         */
+        private boolean matches(final ReusableSections.Section section) {
+            final TextLinesIterator look = new TextLinesIterator(text);
+            if (!section.matches(look)) {
+                return false;
+            }
+            if (section.marker == null) {
+                // next lines would be processed exactly as after section parsing
+                return true;
+            }
+            // at the end of file all whitespace lines remain in multiline value
+            boolean res = !look.hasNext();
+            while (look.hasNext()) {
+                look.advance();
+                int pos = look.getLineStart();
+                while (pos < look.getLineEnd() && src.charAt(pos) == ' ') {
+                    pos++;
+                }
+                final int padding = pos - look.getLineStart();
+                if (padding >= section.marker.indent) {
+                    // line would be appended to value
+                    break;
+                }
+                if (pos < look.getLineEnd()) {
+                    // value ends (preceding whitespace lines would be detached as comments)
+                    res = true;
+                    break;
+                }
+            }
+            return res;
+        }
+
+        /**
+         * Moves to the last section line. Value of the last section node could be modified by the following lines
+         * (flow multiline), so it is re-created with the current source.
+         *
+         * @param section reused section
+         */
+        private void skipSection(final ReusableSections.Section section) {
+            final SourceLines value = (SourceLines) section.last.getRawValue();
+            final int valueLine = section.size - value.size();
+            final List<String> lastValue = newLines();
+            for (int i = 0; i < section.size; i++) {
+                if (i > 0) {
+                    text.advance();
+                    lineNum++;
+                }
+                if (i >= valueLine) {
+                    // first value line is the end of node line (matched section lines are source lines)
+                    final int start = i == valueLine
+                            ? text.getLineEnd() - value.getEnd(0) + value.getStart(0) : text.getLineStart();
+                    ((SourceLines) lastValue).addRange(start, text.getLineEnd());
+                }
+            }
+            section.last.setValue(lastValue);
+        }
+
         private void flushComments(final CmtNode node) {
             if (!comments.isEmpty()) {
-                node.getTopComment().addAll(comments);
-                comments.clear();
+                // aggregated list used as node comment directly
+                node.setTopComment(comments);
+                comments = newLines();
+            }
+        }
+
+        private List<String> newLines() {
+            return text == null ? new ArrayList<>() : new SourceLines(text.getText());
+        }
+
+        private void addLine(final List<String> target, final int start, final int end) {
+            if (target instanceof SourceLines) {
+                // store only line position in source text
+                ((SourceLines) target).addRange(lineStart + start, lineStart + end);
+            } else {
+                target.add(substring(start, end));
             }
         }
     }
@@ -2,18 +2,28 @@ package ru.vyarus.yaml.updater.parse.comments;
 
 import ru.vyarus.yaml.updater.parse.comments.model.CmtNode;
 import ru.vyarus.yaml.updater.parse.comments.model.CmtTree;
+import ru.vyarus.yaml.updater.parse.comments.model.SourceLines;
 import ru.vyarus.yaml.updater.parse.common.TreeStringUtils;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 /**
  * Renders comments model. Would render exactly the same content as in just read yaml file (by comments parser).
+ * <p>
+ * Lines, backed by source text ({@link SourceLines}), are written directly from source (without intermediate
+ * strings).
+ * <p>
+ * Indentation shifts, performed during merge ({@link CmtNode#shift(int)}), are applied to value and comment lines
+ * only here (lines are not rewritten in the model).
  *
  * @author Vyacheslav Rusakov
  * @since 28.04.2021
@@ -37,6 +47,20 @@ public final class CommentsWriter {
         }
     }
 
+    /**
+     * Renders single node (together with its comment and sub nodes).
+     *
+     * @param node comments model node
+     * @return rendered yaml part
+     */
+    public static String write(final CmtNode node) {
+        final StringWriter res = new StringWriter();
+        try (PrintWriter out = new PrintWriter(res)) {
+            writeNode(node, out, false);
+        }
+        return res.toString();
+    }
+
     /**
      * Writes yaml into file.
      *
@@ -77,9 +101,16 @@ public final class CommentsWriter {
     private static void writeNode(final CmtNode node, final PrintWriter out, final boolean listItemFirstLine) {
         try {
             // starting with comment
-            for (String comment : node.getTopComment()) {
-                // comment line stored as-is (all paddings preserved)
-                writeLine(0, comment, out);
+            final List<String> comments = node.getRawTopComment();
+            final boolean shifted = node.isCommentShifted();
+            for (int i = 0; i < comments.size(); i++) {
+                if (shifted) {
+                    // pending merge shift applied only on write
+                    writeLine(node.shiftCommentLine(comments.get(i)), out);
+                } else {
+                    // comment line stored as-is (all paddings preserved)
+                    writeLine(comments, i, out);
+                }
             }
             if (node.isCommentOnly()) {
                 return;
@@ -100,7 +131,8 @@ public final class CommentsWriter {
     }
 
     @SuppressWarnings("PMD.UseStringBufferForStringAppends")
-    private static void writeValue(final CmtNode node, final PrintWriter out, final boolean listItemFirstLine) {
+    private static void writeValue(final CmtNode node, final PrintWriter out, final boolean listItemFirstLine)
+            throws IOException {
         String res = "";
         if (node.isListItem()) {
             res += "-";
@@ -112,29 +144,48 @@ public final class CommentsWriter {
         if (node.getKey() != null) {
             res += node.getSourceKey() + ':';
         }
-        if (!node.getValue().isEmpty()) {
-            res += node.getValue().get(0);
+        final List<String> value = node.getRawValue();
+        // case when property is a first list item property written just after dash
+        // in this case padding already written on line (during dash node rendering)
+        write(node.isListItemWithProperty() || !listItemFirstLine ? node.getPadding() : 0, res, out);
+        if (!value.isEmpty()) {
+            writeSource(value, 0, out);
         }
-        if (node.isListItemWithProperty()) {
-            // without new line (property must be written on the same line)
-            write(node.getPadding(), res, out);
-        } else {
-            // case when property is a first list item property written just after dash
-            // in this case padding already written on line (during dash node rendering)
-            writeLine(listItemFirstLine ? 0 : node.getPadding(), res, out);
+        if (!node.isListItemWithProperty()) {
+            // for list item with property, line is not ended (property must be written on the same line)
+            out.write(System.lineSeparator());
         }
 
         // multiline value
-        if (node.getValue().size() > 1) {
-            for (int i = 1; i < node.getValue().size(); i++) {
+        final boolean shifted = node.isValueShifted();
+        for (int i = 1; i < value.size(); i++) {
+            if (shifted) {
+                // pending merge shift applied only on write
+                writeLine(node.shiftValueLine(value.get(i)), out);
+            } else {
                 // value line stored as-is
-                writeLine(0, node.getValue().get(i), out);
+                writeLine(value, i, out);
             }
         }
     }
 
-    private static void writeLine(final int padding, final String line, final PrintWriter out) {
-        write(padding, line, out);
+    private static void writeLine(final List<String> lines, final int index, final PrintWriter out)
+            throws IOException {
+        writeSource(lines, index, out);
         out.write(System.lineSeparator());
     }
+
+    private static void writeLine(final String line, final PrintWriter out) {
+        out.write(line);
+        out.write(System.lineSeparator());
+    }
+
+    private static void writeSource(final List<String> lines, final int index, final PrintWriter out)
+            throws IOException {
+        if (lines instanceof SourceLines) {
+            ((SourceLines) lines).write(index, out);
+        } else {
+            out.write(lines.get(index));
+        }
+    }
 }
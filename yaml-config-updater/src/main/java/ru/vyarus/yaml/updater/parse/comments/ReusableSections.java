@@ -0,0 +1,331 @@
+package ru.vyarus.yaml.updater.parse.comments;
+
+import ru.vyarus.yaml.updater.parse.comments.model.CmtNode;
+import ru.vyarus.yaml.updater.parse.comments.model.CmtTree;
+import ru.vyarus.yaml.updater.parse.comments.model.SourceLines;
+import ru.vyarus.yaml.updater.parse.comments.util.MultilineValue;
+import ru.vyarus.yaml.updater.parse.comments.util.TextLinesIterator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Root sections of previously parsed tree, which could be reused during re-parse of changed yaml (see
+ * {@link CommentsReader#reparse(CmtTree, String)}). Section is a root node with its top comment and all sub nodes.
+ * Sections are indexed by the hash of the root node line.
+ * <p>
+ * Sections are not rendered: section lines are compared with the new text directly in the previous source (node
+ * values and comments store line ranges, see {@link SourceLines}). Node line is located in source by its value
+ * (value line is the end of node line). Sections without source lines could not be reused.
+ * <p>
+ * Section could be reused only if it ends "cleanly": the last value could not be affected by the following lines.
+ *
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+final class ReusableSections {
+
+    // root node line hash -> sections
+    private final Map<Integer, List<Section>> index = new HashMap<>();
+
+    ReusableSections(final CmtTree tree) {
+        for (CmtNode node : tree.getChildren()) {
+            if (node.isCommentOnly()) {
+                // trailing comment is never reused
+                continue;
+            }
+            final Section section = new Section(node);
+            if (section.isReusable()) {
+                index.computeIfAbsent(section.hash, k -> new ArrayList<>(1)).add(section);
+            }
+        }
+    }
+
+    /**
+     * @param text  source text
+     * @param start root node line start
+     * @param end   root node line end
+     * @return sections with the same root line (possible matches)
+     */
+    public List<Section> find(final CharSequence text, final int start, final int end) {
+        final List<Section> res = index.get(hash(text, start, end));
+        return res == null ? Collections.emptyList() : res;
+    }
+
+    /**
+     * Same hash as {@link String#hashCode()}, but computed directly in source text.
+     *
+     * @param text  text
+     * @param start start position
+     * @param end   end position
+     * @return region hash
+     */
+    private static int hash(final CharSequence text, final int start, final int end) {
+        int res = 0;
+        for (int i = start; i < end; i++) {
+            res = 31 * res + text.charAt(i);
+        }
+        return res;
+    }
+
+    /**
+     * @param lines lines
+     * @param index line index
+     * @return source lines or null if line is not stored as source range
+     */
+    private static SourceLines sourceLine(final List<String> lines, final int index) {
+        return lines instanceof SourceLines && index < lines.size() && ((SourceLines) lines).isSourceLine(index)
+                ? (SourceLines) lines : null;
+    }
+
+    /**
+     * @param lines value lines (first line is the end of node line)
+     * @return node line start in source
+     */
+    private static int lineStart(final SourceLines lines) {
+        final CharSequence source = lines.getSource();
+        int res = lines.getStart(0);
+        while (res > 0 && source.charAt(res - 1) != '\n' && source.charAt(res - 1) != '\r') {
+            res--;
+        }
+        return res;
+    }
+
+    /**
+     * @param lines first lines
+     * @param index first line index
+     * @param other second lines
+     * @param pos   second line index
+     * @return true if lines are equal
+     */
+    static boolean equal(final List<String> lines, final int index, final List<String> other, final int pos) {
+        final SourceLines source = sourceLine(other, pos);
+        if (source != null) {
+            return equal(lines, index, source.getSource(), source.getStart(pos), source.getEnd(pos));
+        }
+        final String line = other.get(pos);
+        return equal(lines, index, line, 0, line.length());
+    }
+
+    /**
+     * @param lines lines
+     * @param index line index
+     * @param text  text
+     * @param start region start
+     * @param end   region end
+     * @return true if line is equal to text region
+     */
+    static boolean equal(final List<String> lines, final int index,
+                         final CharSequence text, final int start, final int end) {
+        final SourceLines source = sourceLine(lines, index);
+        if (source != null) {
+            return equal(source.getSource(), source.getStart(index), source.getEnd(index), text, start, end);
+        }
+        final String line = lines.get(index);
+        return equal(line, 0, line.length(), text, start, end);
+    }
+
+    private static boolean equal(final CharSequence text, final int start, final int end,
+                                 final CharSequence other, final int otherStart, final int otherEnd) {
+        if (end - start != otherEnd - otherStart) {
+            return false;
+        }
+        for (int i = 0; i < end - start; i++) {
+            if (text.charAt(start + i) != other.charAt(otherStart + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Previous tree root node.
+     */
+    @SuppressWarnings("checkstyle:VisibilityModifier")
+    static class Section {
+        final CmtNode node;
+        // last section node (current node after section parsing)
+        final CmtNode last;
+        // multiline state after the last value (null if last value is not multiline)
+        final MultilineValue.Marker marker;
+        // root node line in previous source (null if section is not backed by source)
+        final SourceLines rootLine;
+        // root node line hash
+        final int hash;
+        // section lines count without top comment (known after matching)
+        int size;
+        boolean used;
+
+        Section(final CmtNode node) {
+            this.node = node;
+            CmtNode cur = node;
+            while (cur.hasChildren()) {
+                cur = cur.getChildren().get(cur.getChildren().size() - 1);
+            }
+            this.last = cur;
+            this.marker = detectEnding(cur);
+            // list item with property line is the first property line
+            cur = node;
+            while (cur.isListItemWithProperty()) {
+                cur = cur.getChildren().get(0);
+            }
+            this.rootLine = sourceLine(cur.getRawValue(), 0);
+            this.hash = rootLine == null ? 0 : hash(rootLine.getSource(), lineStart(rootLine), rootLine.getEnd(0));
+        }
+
+        /**
+         * @param comments aggregated comments
+         * @return true if section top comment is the same
+         */
+        public boolean isCommentMatch(final List<String> comments) {
+            final List<String> top = node.getRawTopComment();
+            if (node.isCommentShifted() || top.size() != comments.size()) {
+                return false;
+            }
+            for (int i = 0; i < top.size(); i++) {
+                if (!equal(top, i, comments, i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Section lines (starting from root node line) are compared in write order with text lines.
+         *
+         * @param look text lines iterator at root node line (moved to the last section line)
+         * @return true if all section lines are equal to text lines
+         */
+        public boolean matches(final TextLinesIterator look) {
+            final LinesMatcher matcher = new LinesMatcher(look);
+            final boolean res = matcher.matches(node, true);
+            size = matcher.count;
+            return res;
+        }
+
+        /**
+         * Block value with keep ending ({@code |+}) consumes all following empty lines and block value without
+         * indented lines could consume the next root line, so such sections are not reused. Multiline value, ending
+         * with whitespace lines, was the last value in file (otherwise, such lines would be detached as comments).
+         *
+         * @return true if section could be reused
+         */
+        @SuppressWarnings("PMD.InefficientEmptyStringCheck")
+        public boolean isReusable() {
+            if (rootLine == null) {
+                return false;
+            }
+            if (marker == null) {
+                return true;
+            }
+            final List<String> value = last.getValue();
+            return marker.indent > 0 && marker.ending != 1 && !value.get(value.size() - 1).trim().isEmpty();
+        }
+
+        /**
+         * Multiline value lines are processed exactly as during parsing to get multiline state after the last line.
+         * Note that after multiline value end, value could continue as flow multiline (if the next line is indented).
+         *
+         * @param node last section node
+         * @return multiline marker after the last value line or null if value is not multiline
+         */
+        private static MultilineValue.Marker detectEnding(final CmtNode node) {
+            final List<String> value = node.getValue();
+            // list scalar value is never checked for marker
+            MultilineValue.Marker res = node.getKey() == null || value.isEmpty() ? null
+                    : MultilineValue.detect(value.get(0));
+            for (int i = 1; i < value.size(); i++) {
+                final String line = value.get(i);
+                final int padding = padding(line);
+                final boolean whitespaceOnly = padding == line.length();
+                if (res != null && (whitespaceOnly || res.indent <= padding)) {
+                    if (res.indent == -1) {
+                        res.indent = padding;
+                    }
+                } else if (whitespaceOnly || line.charAt(padding) == '#') {
+                    // comment, moved into value by flow multiline detection
+                    res = null;
+                } else {
+                    res = MultilineValue.flowMarker(padding);
+                }
+            }
+            return res;
+        }
+
+        private static int padding(final String line) {
+            int res = 0;
+            while (res < line.length() && line.charAt(res) == ' ') {
+                res++;
+            }
+            return res;
+        }
+    }
+
+    /**
+     * Compares nodes lines with text lines.
+     */
+    private static final class LinesMatcher {
+        private final TextLinesIterator look;
+        // matched lines count
+        private int count;
+
+        LinesMatcher(final TextLinesIterator look) {
+            this.look = look;
+        }
+
+        /**
+         * @param node node to compare (with sub nodes)
+         * @param root true for section root (top comment is not compared)
+         * @return true if node lines are equal to text lines
+         */
+        boolean matches(final CmtNode node, final boolean root) {
+            if (node.isValueShifted() || node.isCommentShifted()) {
+                // not a parse result
+                return false;
+            }
+            if (!root) {
+                final List<String> comments = node.getRawTopComment();
+                for (int i = 0; i < comments.size(); i++) {
+                    if (!next() || !equal(comments, i, look.getText(), look.getLineStart(), look.getLineEnd())) {
+                        return false;
+                    }
+                }
+            }
+            // list item with property line is the first property line
+            if (!node.isListItemWithProperty()) {
+                final List<String> value = node.getRawValue();
+                final SourceLines line = sourceLine(value, 0);
+                if (line == null || !next() || !ReusableSections.equal(line.getSource(), lineStart(line),
+                        line.getEnd(0), look.getText(), look.getLineStart(), look.getLineEnd())) {
+                    return false;
+                }
+                for (int i = 1; i < value.size(); i++) {
+                    if (!next() || !equal(value, i, look.getText(), look.getLineStart(), look.getLineEnd())) {
+                        return false;
+                    }
+                }
+            }
+            for (CmtNode child : node.getChildren()) {
+                if (!matches(child, false)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean next() {
+            // iterator is already at the first line
+            if (count > 0) {
+                if (!look.hasNext()) {
+                    return false;
+                }
+                look.advance();
+            }
+            count++;
+            return true;
+        }
+    }
+}
@@ -1,10 +1,15 @@
 package ru.vyarus.yaml.updater.parse.comments.model;
 
+import ru.vyarus.yaml.updater.parse.comments.util.Utf8Text;
+import ru.vyarus.yaml.updater.parse.common.TreeStringUtils;
 import ru.vyarus.yaml.updater.parse.common.YamlModelUtils;
+import ru.vyarus.yaml.updater.parse.common.model.ContentHash;
+import ru.vyarus.yaml.updater.parse.common.model.KeysTable;
 import ru.vyarus.yaml.updater.parse.common.model.YamlLine;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * One or multiple lines in yaml file. Usually represent property ({@code something: val}), its value and comment.
@@ -38,14 +43,23 @@ public class CmtNode extends YamlLine<CmtNode> {
     private List<String> value = new ArrayList<>();
     // node comment is everything above before previous node
     // using list to avoid dealing with line separators
-    private final List<String> topComment = new ArrayList<>();
+    private List<String> topComment = new ArrayList<>();
 
     // this value is set from structure parser
     private String parsedValue;
+    // parsed value computed on first access
+    private Supplier<String> lazyParsedValue;
 
     // special marker for added nodes during merge
     private boolean addedNode;
 
+    // indentation shift, not yet applied to multiline value lines (see shift())
+    private int valueShift;
+    // indentation shift, not yet applied to comment lines: comment padding becomes
+    // max(commentMinPadding, padding + commentShift) (left shift never cuts comment)
+    private int commentShift;
+    private int commentMinPadding = -1;
+
     public CmtNode(final CmtNode root, final int padding, final int lineNum) {
         super(root, padding, lineNum);
     }
@@ -57,6 +71,18 @@ public class CmtNode extends YamlLine<CmtNode> {
         super.setKey(YamlModelUtils.cleanPropertyName(key));
     }
 
+    /**
+     * Same as {@link #setKey(String)}, but raw and cleaned names are symbols (cleaned name is not computed for
+     * already known raw name).
+     *
+     * @param key  raw property name
+     * @param keys symbol table
+     */
+    public void setKey(final String key, final KeysTable keys) {
+        sourceKey = keys.intern(key);
+        super.setKey(keys.clean(sourceKey));
+    }
+
     /**
      * Original yaml file could contain quoted key, but {@link #getKey()} would always return unquoted key to avoid
      * comparison mistakes. Use this method to get original key before writing it back to file (method ONLY for
@@ -75,17 +101,31 @@ public class CmtNode extends YamlLine<CmtNode> {
      * @param sourceKey new property representation in file
      */
     public void setSourceKey(final String sourceKey) {
-        if (!getKey().equals(YamlModelUtils.cleanPropertyName(sourceKey))) {
+        // same (interned) source key could not change property name
+        if (!sourceKey.equals(this.sourceKey) && !getKey().equals(YamlModelUtils.cleanPropertyName(sourceKey))) {
             throw new IllegalStateException("Attempt to replace raw property name from [" + this.sourceKey
                     + "] into [" + sourceKey + "] for property " + getKey());
         }
         this.sourceKey = sourceKey;
+        contentChanged();
     }
 
     /**
+     * Pending indentation shift (see {@link #shift(int)}) is applied to value lines.
+     *
      * @return property value (multiple lines for multi-line values) or empty list
      */
     public List<String> getValue() {
+        if (valueShift != 0) {
+            final List<String> res = new ArrayList<>(value.size());
+            // first value line is a part of property declaration
+            res.add(value.get(0));
+            for (int i = 1; i < value.size(); i++) {
+                res.add(shiftValueLine(value.get(i)));
+            }
+            value = res;
+            valueShift = 0;
+        }
         return value;
     }
 
@@ -96,24 +136,137 @@ public class CmtNode extends YamlLine<CmtNode> {
      */
     public void setValue(final List<String> value) {
         this.value = value;
+        valueShift = 0;
+        contentChanged();
     }
 
     /**
      * NOTE: If multiple comments above property, separated by blank lines - it all would be assumed as property
      * comment (everything is remembered to re-create exactly the same file).
+     * <p>
+     * Pending indentation shift (see {@link #shift(int)}) is applied to comment lines.
      *
      * @return comment (multiple lines) above property or empty list if no comment
      */
     public List<String> getTopComment() {
+        if (isCommentShifted()) {
+            final List<String> res = new ArrayList<>(topComment.size());
+            for (String line : topComment) {
+                res.add(shiftCommentLine(line));
+            }
+            // list is replaced (same as value): source list may be shared
+            topComment = res;
+            commentShift = 0;
+            commentMinPadding = -1;
+        }
         return topComment;
     }
 
+    /**
+     * Register property comment.
+     *
+     * @param topComment comment lines above property
+     */
+    public void setTopComment(final List<String> topComment) {
+        this.topComment = topComment;
+        commentShift = 0;
+        commentMinPadding = -1;
+        contentChanged();
+    }
+
+    /**
+     * Shifts node and its subtree indentation (required for merge, when old and new files has different paddings).
+     * Only paddings are changed immediately: multiline value lines and comment lines are shifted on write
+     * (or when value or comment is requested), so multiple shifts of the same subtree (on different merge levels)
+     * are applied at once.
+     * <p>
+     * Multiline value lines (except the first line, which is a part of property declaration) are shifted as-is.
+     * Comments could be shifted left only up to comment start.
+     *
+     * @param shift indentation shift (negative to reduce padding)
+     */
+    public void shift(final int shift) {
+        if (shift == 0) {
+            return;
+        }
+        if (value.size() > 1) {
+            valueShift += shift;
+        }
+        if (hasComment()) {
+            commentShift += shift;
+            // left shift limits comment padding (-1 while there were only right shifts)
+            if (shift < 0) {
+                commentMinPadding = Math.max(0, commentMinPadding + shift);
+            } else if (commentMinPadding >= 0) {
+                commentMinPadding += shift;
+            }
+        }
+        setPadding(getPadding() + shift);
+        for (CmtNode child : getChildren()) {
+            child.shift(shift);
+        }
+    }
+
+    /**
+     * Lines without pending shift (see {@link #shift(int)}). Method ONLY for writer: use {@link #getValue()}
+     * to work with value.
+     *
+     * @return value lines without pending shift applied
+     */
+    public List<String> getRawValue() {
+        return value;
+    }
+
+    /**
+     * Lines without pending shift (see {@link #shift(int)}). Method ONLY for writer: use {@link #getTopComment()}
+     * to work with comment.
+     *
+     * @return comment lines without pending shift applied
+     */
+    public List<String> getRawTopComment() {
+        return topComment;
+    }
+
+    /**
+     * @return true if multiline value lines must be shifted on write (see {@link #shiftValueLine(String)})
+     */
+    public boolean isValueShifted() {
+        return valueShift != 0;
+    }
+
+    /**
+     * @return true if comment lines must be shifted on write (see {@link #shiftCommentLine(String)})
+     */
+    public boolean isCommentShifted() {
+        return commentShift != 0 || commentMinPadding >= 0;
+    }
+
+    /**
+     * @param line raw multiline value line (not first)
+     * @return line with applied pending shift
+     */
+    public String shiftValueLine(final String line) {
+        return shift(line, valueLineShift(line, 0, line.length()));
+    }
+
+    /**
+     * @param line raw comment line
+     * @return line with applied pending shift
+     */
+    public String shiftCommentLine(final String line) {
+        return shift(line, commentLineShift(line, 0, line.length()));
+    }
+
     /**
      * NOTE: such value may not be set if comments parser used directly (e.g. in tests).
      *
      * @return value from snakeyaml parser or null
      */
     public String getParsedValue() {
+        if (lazyParsedValue != null) {
+            parsedValue = lazyParsedValue.get();
+            lazyParsedValue = null;
+        }
         return parsedValue;
     }
 
@@ -124,13 +277,25 @@ public class CmtNode extends YamlLine<CmtNode> {
      */
     public void setParsedValue(final String parsedValue) {
         this.parsedValue = parsedValue;
+        this.lazyParsedValue = null;
+    }
+
+    /**
+     * Parsed value computed only when requested (see
+     * {@link ru.vyarus.yaml.updater.parse.struct.model.StructNode#setLazyValue(Supplier)}).
+     *
+     * @param parsedValue value from snakeyaml parser provider
+     */
+    public void setLazyParsedValue(final Supplier<String> parsedValue) {
+        this.lazyParsedValue = parsedValue;
+        this.parsedValue = null;
     }
 
     /**
      * @return true if property has comment above
      */
     public boolean hasComment() {
-        return !getTopComment().isEmpty();
+        return !topComment.isEmpty();
     }
 
     /**
@@ -138,7 +303,7 @@ public class CmtNode extends YamlLine<CmtNode> {
      */
     @SuppressWarnings("checkstyle:BooleanExpressionComplexity")
     public boolean isCommentOnly() {
-        return hasComment() && !isListItem() && getKey() == null && getValue().isEmpty();
+        return hasComment() && !isListItem() && getKey() == null && value.isEmpty();
     }
 
     /**
@@ -153,8 +318,9 @@ public class CmtNode extends YamlLine<CmtNode> {
     public String getIdentityValue() {
         // if possible use value from snakeyaml
         // (normally only this branch should work)
-        if (parsedValue != null) {
-            return parsedValue;
+        final String parsed = getParsedValue();
+        if (parsed != null) {
+            return parsed;
         }
         // collect value from parsed lines, excluding whitespace and comments
         String res = "";
@@ -171,6 +337,127 @@ public class CmtNode extends YamlLine<CmtNode> {
         return res.isEmpty() ? null : res;
     }
 
+    /**
+     * Hash includes everything written into file: padding, source key, value and comment lines (with pending
+     * shift applied) and list item style.
+     *
+     * @return node content hash
+     */
+    @Override
+    protected long computeContentHash() {
+        long res = ContentHash.add(ContentHash.EMPTY, getPadding());
+        res = ContentHash.add(res, sourceKey);
+        res = ContentHash.add(res, isListItem());
+        res = ContentHash.add(res, isListItemWithProperty());
+        res = ContentHash.add(res, value.size());
+        for (int i = 0; i < value.size(); i++) {
+            res = hashLine(res, value, i, false);
+        }
+        res = ContentHash.add(res, topComment.size());
+        for (int i = 0; i < topComment.size(); i++) {
+            res = hashLine(res, topComment, i, true);
+        }
+        return res;
+    }
+
+    /**
+     * Source lines (see {@link SourceLines}) are hashed directly in source text (no line strings creation). Byte
+     * source (see {@link Utf8Text}) is decoded for lines with non-ASCII characters, so hash is the same for all
+     * read modes.
+     *
+     * @param hash    current hash
+     * @param lines   value or comment lines
+     * @param index   line index
+     * @param comment true for comment line
+     * @return updated hash
+     */
+    private long hashLine(final long hash, final List<String> lines, final int index, final boolean comment) {
+        CharSequence text;
+        int start;
+        int end;
+        if (lines instanceof SourceLines && ((SourceLines) lines).isSourceLine(index)) {
+            final SourceLines source = (SourceLines) lines;
+            text = source.getSource();
+            start = source.getStart(index);
+            end = source.getEnd(index);
+            if (text instanceof Utf8Text && !((Utf8Text) text).isAscii(start, end)) {
+                // bytes are not chars
+                text = lines.get(index);
+                start = 0;
+                end = text.length();
+            }
+        } else {
+            final String line = lines.get(index);
+            if (line == null) {
+                return ContentHash.add(hash, line);
+            }
+            text = line;
+            start = 0;
+            end = line.length();
+        }
+        // first value line is a part of property declaration (never shifted)
+        final int shift = comment ? commentLineShift(text, start, end)
+                : index == 0 ? 0 : valueLineShift(text, start, end);
+        return shift >= 0
+                ? ContentHash.add(hash, text, start, end, shift)
+                : ContentHash.add(hash, text, start - shift, end, 0);
+    }
+
+    /**
+     * @param text  line text
+     * @param start line start
+     * @param end   line end
+     * @return pending value line shift (positive - padding to add, negative - whitespace to cut)
+     */
+    private int valueLineShift(final CharSequence text, final int start, final int end) {
+        // skip blank lines
+        return valueShift == 0 || isBlank(text, start, end) ? 0 : valueShift;
+    }
+
+    /**
+     * @param text  line text
+     * @param start line start
+     * @param end   line end
+     * @return pending comment line shift (positive - padding to add, negative - whitespace to cut)
+     */
+    private int commentLineShift(final CharSequence text, final int start, final int end) {
+        // skip blank lines
+        if (!isCommentShifted() || isBlank(text, start, end)) {
+            return 0;
+        }
+        if (commentMinPadding < 0) {
+            // only right shifts
+            return commentShift;
+        }
+        int cmtStart = -1;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '#') {
+                cmtStart = i - start;
+                break;
+            }
+        }
+        // shift left, but only whitespace before comment
+        return Math.max(commentMinPadding, cmtStart + commentShift) - cmtStart;
+    }
+
+    private static String shift(final String line, final int shift) {
+        return shift >= 0
+                // increase padding
+                ? TreeStringUtils.shiftRight(line, shift)
+                // reduce padding (cut off whitespace)
+                : line.substring(-shift);
+    }
+
+    // same as String.trim().isEmpty()
+    private static boolean isBlank(final CharSequence text, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Mark node as added during merge process.
      *
@@ -190,7 +477,7 @@ public class CmtNode extends YamlLine<CmtNode> {
     @Override
     public String toString() {
         if (isCommentOnly()) {
-            return topComment.get(0);
+            return shiftCommentLine(topComment.get(0));
         }
         final String value = hasValue() ? this.value.get(0) : "";
         final String res;
@@ -0,0 +1,225 @@
+package ru.vyarus.yaml.updater.parse.comments.model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * Lines list, backed by the original yaml source. Instead of storing each line as a separate string, only line
+ * boundaries (start and end offsets) are stored and string is created only when line is requested. All lists,
+ * created for the same source, share it (no copies).
+ * <p>
+ * List is mutable: lines added or replaced with custom strings (not from source) are stored as-is, so merge logic
+ * could work with it as with usual list. Offsets are preserved when lines are moved between lists of the same source
+ * ({@link #addAll(java.util.Collection)}), for different sources lines are copied as strings.
+ * <p>
+ * Use {@link #write(int, java.io.Writer)} to write line without intermediate string creation.
+ *
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+public class SourceLines extends AbstractList<String> implements RandomAccess {
+
+    private static final int[] EMPTY = new int[0];
+
+    private final CharSequence source;
+    // start and end offsets for each line (pairs)
+    private int[] ranges = EMPTY;
+    // lines not from source (created only when required)
+    private String[] strings;
+    private int size;
+
+    public SourceLines(final CharSequence source) {
+        this.source = source;
+    }
+
+    /**
+     * @return source text all lines point to
+     */
+    public CharSequence getSource() {
+        return source;
+    }
+
+    /**
+     * Appends source line (without copying).
+     *
+     * @param start line start offset in source (inclusive)
+     * @param end   line end offset in source (exclusive)
+     */
+    public void addRange(final int start, final int end) {
+        insert(size, start, end, null);
+    }
+
+    /**
+     * @param index line index
+     * @return true if line is stored as offsets in source, false if line was added as string
+     */
+    public boolean isSourceLine(final int index) {
+        checkIndex(index);
+        return strings == null || strings[index] == null;
+    }
+
+    /**
+     * @param index source line index (see {@link #isSourceLine(int)})
+     * @return line start offset in source
+     */
+    public int getStart(final int index) {
+        checkIndex(index);
+        return ranges[index * 2];
+    }
+
+    /**
+     * @param index source line index (see {@link #isSourceLine(int)})
+     * @return line end offset in source (exclusive)
+     */
+    public int getEnd(final int index) {
+        checkIndex(index);
+        return ranges[index * 2 + 1];
+    }
+
+    /**
+     * Writes line directly from source without string creation.
+     *
+     * @param index line index
+     * @param out   writer to write to
+     * @throws IOException on write error
+     */
+    public void write(final int index, final Writer out) throws IOException {
+        if (isSourceLine(index)) {
+            final int start = ranges[index * 2];
+            final int end = ranges[index * 2 + 1];
+            if (source instanceof String) {
+                out.write((String) source, start, end - start);
+            } else if (source instanceof CharBuffer && ((CharBuffer) source).hasArray()) {
+                final CharBuffer buffer = (CharBuffer) source;
+                out.write(buffer.array(), buffer.arrayOffset() + buffer.position() + start, end - start);
+            } else {
+                out.append(source, start, end);
+            }
+        } else {
+            out.write(strings[index]);
+        }
+    }
+
+    @Override
+    public String get(final int index) {
+        return isSourceLine(index)
+                ? source.subSequence(ranges[index * 2], ranges[index * 2 + 1]).toString()
+                : strings[index];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String set(final int index, final String element) {
+        final String res = get(index);
+        stringAt(index, element);
+        return res;
+    }
+
+    @Override
+    public void add(final int index, final String element) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (element == null) {
+            throw new IllegalArgumentException("Null lines are not allowed");
+        }
+        insert(index, -1, -1, element);
+    }
+
+    @Override
+    public String remove(final int index) {
+        final String res = get(index);
+        final int tail = size - index - 1;
+        if (tail > 0) {
+            System.arraycopy(ranges, (index + 1) * 2, ranges, index * 2, tail * 2);
+            if (strings != null) {
+                System.arraycopy(strings, index + 1, strings, index, tail);
+            }
+        }
+        size--;
+        if (strings != null) {
+            strings[size] = null;
+        }
+        modCount++;
+        return res;
+    }
+
+    @Override
+    public void clear() {
+        ranges = EMPTY;
+        strings = null;
+        size = 0;
+        modCount++;
+    }
+
+    @Override
+    public boolean addAll(final Collection<? extends String> c) {
+        if (c instanceof SourceLines && ((SourceLines) c).source == source) {
+            // same source: copy offsets only
+            final SourceLines lines = (SourceLines) c;
+            // copy to avoid problems with self-addition
+            final int cnt = lines.size;
+            final int[] add = Arrays.copyOf(lines.ranges, cnt * 2);
+            final String[] addStrings = lines.strings == null ? null : Arrays.copyOf(lines.strings, cnt);
+            for (int i = 0; i < cnt; i++) {
+                insert(size, add[i * 2], add[i * 2 + 1], addStrings == null ? null : addStrings[i]);
+            }
+            return cnt > 0;
+        }
+        return super.addAll(c);
+    }
+
+    private void insert(final int index, final int start, final int end, final String value) {
+        if (ranges.length < (size + 1) * 2) {
+            // most lists contain just one line (single line value)
+            ranges = Arrays.copyOf(ranges, (size == 0 ? 1 : size * 2) * 2);
+            if (strings != null) {
+                strings = Arrays.copyOf(strings, ranges.length / 2);
+            }
+        }
+        final int tail = size - index;
+        if (tail > 0) {
+            System.arraycopy(ranges, index * 2, ranges, (index + 1) * 2, tail * 2);
+            if (strings != null) {
+                System.arraycopy(strings, index, strings, index + 1, tail);
+            }
+        }
+        size++;
+        ranges[index * 2] = start;
+        ranges[index * 2 + 1] = end;
+        if (value == null) {
+            if (strings != null) {
+                strings[index] = null;
+            }
+        } else {
+            stringAt(index, value);
+        }
+        modCount++;
+    }
+
+    private void stringAt(final int index, final String value) {
+        checkIndex(index);
+        if (value == null) {
+            throw new IllegalArgumentException("Null lines are not allowed");
+        }
+        if (strings == null) {
+            strings = new String[ranges.length / 2];
+        }
+        strings[index] = value;
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
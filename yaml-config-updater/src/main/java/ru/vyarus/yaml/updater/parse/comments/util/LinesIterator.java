@@ -0,0 +1,55 @@
+package ru.vyarus.yaml.updater.parse.comments.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lazy lines iterator over character stream. Only one line is held in memory at a time so large files could be
+ * parsed without reading entire content first.
+ * <p>
+ * Line terminators recognized exactly the same way as with {@link java.nio.file.Files#readAllLines(
+ * java.nio.file.Path, java.nio.charset.Charset)} ({@code \n}, {@code \r} or {@code \r\n}) so parsing result
+ * would be identical.
+ * <p>
+ * Reader is not closed by iterator.
+ *
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+public class LinesIterator implements Iterator<String> {
+
+    private final BufferedReader reader;
+    private String next;
+    private boolean fetched;
+
+    public LinesIterator(final Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!fetched) {
+            try {
+                next = reader.readLine();
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to read line", e);
+            }
+            fetched = true;
+        }
+        return next != null;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final String res = next;
+        next = null;
+        fetched = false;
+        return res;
+    }
+}
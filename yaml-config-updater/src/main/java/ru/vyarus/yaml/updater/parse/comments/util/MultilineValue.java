@@ -2,9 +2,6 @@ package ru.vyarus.yaml.updater.parse.comments.util;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Yaml multi-line value detector utility.
  *
@@ -13,16 +10,8 @@ import java.util.regex.Pattern;
  */
 public final class MultilineValue {
 
-    /**
-     * (https://yaml-multiline.info).
-     * <p>
-     * | - keep newlines in value
-     * > - replace newlines with spaces in value (double newline replaced with newline)
-     * + - append all newlines at the end (by default only one kept)
-     * - - drop newlines at the end
-     * \d - number of padding (counting by current property); used if first value line is more shifted
-     */
-    private static final Pattern MULTILINE = Pattern.compile("([|>])([+-])?(\\d+)?$");
+    // max digits count, always fitting into int
+    private static final int SAFE_DIGITS = 9;
 
     private MultilineValue() {
     }
@@ -33,24 +22,52 @@ public final class MultilineValue {
      * @param line line to check
      * @return marker descriptor or null if not found
      */
-    @SuppressFBWarnings("URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
     public static Marker detect(final String line) {
+        return detect(line, 0, line.length());
+    }
+
+    /**
+     * Detect multi-line marker at the end of the line (https://yaml-multiline.info):
+     * <ul>
+     *     <li>| - keep newlines in value</li>
+     *     <li>&gt; - replace newlines with spaces in value (double newline replaced with newline)</li>
+     *     <li>+ - append all newlines at the end (by default only one kept)</li>
+     *     <li>- - drop newlines at the end</li>
+     *     <li>number - number of padding (counting by current property); used if first value line is more
+     *     shifted</li>
+     * </ul>
+     * Marker is searched backwards from line end directly in the source text (no substrings).
+     *
+     * @param text  source text
+     * @param start line start offset in text
+     * @param end   line end offset in text (exclusive)
+     * @return marker descriptor or null if not found
+     */
+    @SuppressFBWarnings("URF_UNREAD_PUBLIC_OR_PROTECTED_FIELD")
+    public static Marker detect(final CharSequence text, final int start, final int end) {
         // cut off possible inline comment (prop: | # some comment)
-        final String source = cutComment(line);
-        Marker res = null;
-        final Matcher match = MULTILINE.matcher(source);
-        if (match.find()) {
-            res = new Marker();
-            // > or |
-            res.keep = "|".equals(match.group(1));
-            if (match.group(2) != null) {
-                // + or -
-                res.ending = "+".equals(match.group(2)) ? 1 : -1;
-            }
-            if (match.group(3) != null) {
-                // number
-                res.indent = Integer.parseInt(match.group(3));
-            }
+        int pos = trimEnd(text, start, cutComment(text, start, end)) - 1;
+        final int digitsEnd = pos + 1;
+        while (pos >= start && text.charAt(pos) >= '0' && text.charAt(pos) <= '9') {
+            pos--;
+        }
+        final int digitsStart = pos + 1;
+        int ending = 0;
+        if (pos >= start && (text.charAt(pos) == '+' || text.charAt(pos) == '-')) {
+            // + or -
+            ending = text.charAt(pos) == '+' ? 1 : -1;
+            pos--;
+        }
+        if (pos < start || text.charAt(pos) != '|' && text.charAt(pos) != '>') {
+            return null;
+        }
+        final Marker res = new Marker();
+        // > or |
+        res.keep = text.charAt(pos) == '|';
+        res.ending = ending;
+        if (digitsEnd > digitsStart) {
+            // number
+            res.indent = parseInt(text, digitsStart, digitsEnd);
         }
         return res;
     }
@@ -60,10 +77,20 @@ public final class MultilineValue {
      * @return true if line contains any "value" that could potentially continue as flow multiline value
      */
     public static boolean couldBeFlowMultiline(final String value) {
-        final String pure = cutComment(value);
+        return value != null && couldBeFlowMultiline(value, 0, value.length());
+    }
+
+    /**
+     * @param text  source text
+     * @param start line start offset in text
+     * @param end   line end offset in text (exclusive)
+     * @return true if line contains any "value" that could potentially continue as flow multiline value
+     * @see #couldBeFlowMultiline(String)
+     */
+    public static boolean couldBeFlowMultiline(final CharSequence text, final int start, final int end) {
         // can't accept multiline starting from empty line here, because next line could be a property or
         // list item (can't know beforehand, only after checking next line could guess multiline)
-        return pure != null && !pure.isEmpty();
+        return trimEnd(text, start, cutComment(text, start, end)) > trimStart(text, start, end);
     }
 
     /**
@@ -80,21 +107,49 @@ public final class MultilineValue {
     }
 
     /**
-     * Removes trailing yaml comment.
+     * Searches trailing yaml comment.
      *
-     * @param line line to cut
-     * @return line without trailing comment
+     * @param text  source text
+     * @param start line start
+     * @param end   line end
+     * @return line end without trailing comment
      */
-    private static String cutComment(final String line) {
-        if (line == null) {
-            return null;
+    private static int cutComment(final CharSequence text, final int start, final int end) {
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '#') {
+                // comment at line start is not cut
+                return i > start ? i : end;
+            }
+        }
+        return end;
+    }
+
+    private static int trimStart(final CharSequence text, final int start, final int end) {
+        int res = start;
+        while (res < end && text.charAt(res) <= ' ') {
+            res++;
         }
-        String source = line;
-        final int comment = source.indexOf('#');
-        if (comment > 0) {
-            source = source.substring(0, comment);
+        return res;
+    }
+
+    private static int trimEnd(final CharSequence text, final int start, final int end) {
+        int res = end;
+        while (res > start && text.charAt(res - 1) <= ' ') {
+            res--;
         }
-        return source.trim();
+        return res;
+    }
+
+    private static int parseInt(final CharSequence text, final int start, final int end) {
+        if (end - start > SAFE_DIGITS) {
+            // could overflow - let jdk report it
+            return Integer.parseInt(text.subSequence(start, end).toString());
+        }
+        int res = 0;
+        for (int i = start; i < end; i++) {
+            res = res * 10 + text.charAt(i) - '0';
+        }
+        return res;
     }
 
     /**
@@ -0,0 +1,150 @@
+package ru.vyarus.yaml.updater.parse.comments.util;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Lines iterator over in-memory text. Remembers position of the current line in the source text so parser could
+ * store line offsets instead of line strings (see {@link ru.vyarus.yaml.updater.parse.comments.model.SourceLines}).
+ * <p>
+ * Two splitting modes supported:
+ * <ul>
+ *     <li>String mode: lines are split exactly as with {@code text.split("\\r?\\n")}: {@code \n} or {@code \r\n}
+ *     separators and trailing empty lines are ignored</li>
+ *     <li>File mode: lines are split exactly as with {@link java.io.BufferedReader#readLine()} (and so as
+ *     {@link java.nio.file.Files#readAllLines(java.nio.file.Path)}): {@code \n}, {@code \r} or {@code \r\n}
+ *     separators and all lines preserved</li>
+ * </ul>
+ *
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+public class TextLinesIterator implements Iterator<String> {
+
+    private final CharSequence text;
+    private final boolean fileMode;
+    // end of meaningful text (trailing empty lines excluded)
+    private final int end;
+    private int pos;
+    private int lineStart;
+    private int lineEnd;
+
+    /**
+     * @param text     text to split
+     * @param fileMode true to split lines as in file, false to split as string
+     */
+    public TextLinesIterator(final CharSequence text, final boolean fileMode) {
+        this.text = text;
+        this.fileMode = fileMode;
+        int last = text.length();
+        if (!fileMode && contains(text, '\n')) {
+            // exclude trailing empty lines (split behaviour)
+            while (last > 0 && text.charAt(last - 1) == '\n') {
+                last--;
+                if (last > 0 && text.charAt(last - 1) == '\r') {
+                    last--;
+                }
+            }
+            // text contains only line separators: no lines at all
+            if (last == 0) {
+                pos = 1;
+            }
+        }
+        this.end = last;
+    }
+
+    /**
+     * Creates iterator at the same position as the source iterator (for looking ahead without moving source
+     * iterator).
+     *
+     * @param source source iterator
+     */
+    public TextLinesIterator(final TextLinesIterator source) {
+        this.text = source.text;
+        this.fileMode = source.fileMode;
+        this.end = source.end;
+        this.pos = source.pos;
+        this.lineStart = source.lineStart;
+        this.lineEnd = source.lineEnd;
+    }
+
+    /**
+     * @return source text
+     */
+    public CharSequence getText() {
+        return text;
+    }
+
+    /**
+     * @return start offset of the last returned line in source text
+     */
+    public int getLineStart() {
+        return lineStart;
+    }
+
+    /**
+     * @return end offset (exclusive) of the last returned line in source text
+     */
+    public int getLineEnd() {
+        return lineEnd;
+    }
+
+    @Override
+    public boolean hasNext() {
+        // in file mode, empty text after the last separator is not a line
+        return fileMode ? pos < end : pos <= end;
+    }
+
+    @Override
+    public String next() {
+        advance();
+        return text.subSequence(lineStart, lineEnd).toString();
+    }
+
+    /**
+     * Moves to the next line without line string creation: use {@link #getLineStart()} and {@link #getLineEnd()}
+     * to access line in source text.
+     *
+     * @throws NoSuchElementException if no more lines
+     */
+    public void advance() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        lineStart = pos;
+        int i = pos;
+        char separator = 0;
+        while (i < end) {
+            final char c = text.charAt(i);
+            if (c == '\n' || (fileMode && c == '\r')) {
+                separator = c;
+                break;
+            }
+            i++;
+        }
+        if (i >= end) {
+            // last line
+            lineEnd = end;
+            pos = end + 1;
+        } else if (separator == '\n') {
+            lineEnd = !fileMode && i > pos && text.charAt(i - 1) == '\r' ? i - 1 : i;
+            pos = i + 1;
+        } else {
+            // \r or \r\n in file mode
+            lineEnd = i;
+            pos = i + 1 < end && text.charAt(i + 1) == '\n' ? i + 2 : i + 1;
+        }
+    }
+
+    private static boolean contains(final CharSequence text, final char c) {
+        if (text instanceof String) {
+            return ((String) text).indexOf(c) >= 0;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
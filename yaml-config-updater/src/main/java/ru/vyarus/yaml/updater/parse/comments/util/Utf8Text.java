@@ -0,0 +1,102 @@
+package ru.vyarus.yaml.updater.parse.comments.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * UTF-8 bytes, viewed as text for scanning. All yaml structure characters (whitespace, line separators, dash, colon,
+ * comment, quotes, multiline markers) are ASCII and, in UTF-8, bytes of multi-byte characters are never in ASCII
+ * range. So structure could be detected directly on bytes: each byte is returned as a character (non-ASCII bytes
+ * are returned as characters above 0x7F which never match structure characters).
+ * <p>
+ * Length and positions are counted in bytes. Only {@link #toString()} decodes bytes: it is used when line or
+ * property name is actually materialized (e.g. {@code subSequence(start, end).toString()}), so text, which is just
+ * scanned, is never decoded.
+ * <p>
+ * Source buffer position is not changed.
+ *
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+public class Utf8Text implements CharSequence {
+
+    private static final int BYTE_MASK = 0xFF;
+    private static final int ASCII_MAX = 0x7F;
+
+    private final ByteBuffer bytes;
+    // direct array access for heap buffers (null for direct buffers)
+    private final byte[] array;
+    // absolute buffer offset (array offset for heap buffers)
+    private final int start;
+    private final int length;
+
+    /**
+     * @param bytes UTF-8 bytes (remaining buffer part used)
+     */
+    public Utf8Text(final ByteBuffer bytes) {
+        this(bytes, bytes.position(), bytes.remaining());
+    }
+
+    private Utf8Text(final ByteBuffer bytes, final int start, final int length) {
+        this.bytes = bytes;
+        this.array = bytes.hasArray() ? bytes.array() : null;
+        this.start = array != null ? bytes.arrayOffset() + start : start;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + length);
+        }
+        return (char) ((array != null ? array[start + index] : bytes.get(start + index)) & BYTE_MASK);
+    }
+
+    @Override
+    public CharSequence subSequence(final int from, final int to) {
+        if (from < 0 || to > length || from > to) {
+            throw new IndexOutOfBoundsException("Range: " + from + " - " + to + ", Length: " + length);
+        }
+        return new Utf8Text(bytes, position() + from, to - from);
+    }
+
+    /**
+     * For ASCII text, bytes are equal to characters (so text could be used as is, without decoding).
+     *
+     * @param from start position (inclusive)
+     * @param to   end position (exclusive)
+     * @return true if range contains only ASCII characters
+     */
+    public boolean isAscii(final int from, final int to) {
+        for (int i = from; i < to; i++) {
+            if (charAt(i) > ASCII_MAX) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int position() {
+        return array != null ? start - bytes.arrayOffset() : start;
+    }
+
+    /**
+     * @return decoded text
+     */
+    @Override
+    public String toString() {
+        if (array != null) {
+            return new String(array, start, length, StandardCharsets.UTF_8);
+        }
+        final byte[] res = new byte[length];
+        final ByteBuffer buffer = bytes.duplicate();
+        buffer.position(start);
+        buffer.get(res);
+        return new String(res, StandardCharsets.UTF_8);
+    }
+}
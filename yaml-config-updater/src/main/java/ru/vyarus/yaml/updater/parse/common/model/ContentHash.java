@@ -0,0 +1,98 @@
+package ru.vyarus.yaml.updater.parse.common.model;
+
+/**
+ * 64-bit hash functions for nodes content and subtree hashes (see {@link YamlLine#getSubtreeHash()}). String hash
+ * is FNV-1a (computed for all string chars) and child hashes are additionally mixed, so hash could be used to detect
+ * identical subtrees.
+ * <p>
+ * Hash equality is not a proof of equality: collisions are unlikely, but possible. Use hash mismatch to detect
+ * changes and hash match as a shortcut only where collision can't lose data (or confirm it with actual comparison).
+ *
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+public final class ContentHash {
+
+    /**
+     * Initial hash value.
+     */
+    public static final long EMPTY = 0xcbf29ce484222325L;
+
+    private static final long PRIME = 0x100000001b3L;
+    private static final long MIX1 = 0xff51afd7ed558ccdL;
+    private static final long MIX2 = 0xc4ceb9fe1a85ec53L;
+    private static final int MIX_SHIFT = 33;
+
+    private ContentHash() {
+    }
+
+    /**
+     * String length is also counted, so sequential values could not be confused (["ab", "c"] and ["a", "bc"]).
+     *
+     * @param hash  current hash
+     * @param value string to add (may be null)
+     * @return updated hash
+     */
+    public static long add(final long hash, final String value) {
+        if (value == null) {
+            return add(hash, -1);
+        }
+        return add(hash, value, 0, value.length(), 0);
+    }
+
+    /**
+     * Same as {@link #add(long, String)} for a string of padding whitespace and text region, but without string
+     * creation (hash computed directly in source text).
+     *
+     * @param hash    current hash
+     * @param text    text
+     * @param start   region start (inclusive)
+     * @param end     region end (exclusive)
+     * @param padding whitespace count before region
+     * @return updated hash
+     */
+    public static long add(final long hash, final CharSequence text, final int start, final int end,
+                           final int padding) {
+        long res = add(hash, padding + end - start);
+        for (int i = 0; i < padding; i++) {
+            res = (res ^ ' ') * PRIME;
+        }
+        for (int i = start; i < end; i++) {
+            res = (res ^ text.charAt(i)) * PRIME;
+        }
+        return res;
+    }
+
+    /**
+     * @param hash  current hash
+     * @param value value to add
+     * @return updated hash
+     */
+    public static long add(final long hash, final int value) {
+        return (hash ^ value) * PRIME;
+    }
+
+    /**
+     * @param hash  current hash
+     * @param value value to add
+     * @return updated hash
+     */
+    public static long add(final long hash, final boolean value) {
+        return add(hash, value ? 1 : 0);
+    }
+
+    /**
+     * Used for child hashes (value is mixed before adding).
+     *
+     * @param hash  current hash
+     * @param value value to add
+     * @return updated hash
+     */
+    public static long add(final long hash, final long value) {
+        long mix = value;
+        mix = (mix ^ (mix >>> MIX_SHIFT)) * MIX1;
+        mix = (mix ^ (mix >>> MIX_SHIFT)) * MIX2;
+        mix ^= mix >>> MIX_SHIFT;
+        return (hash ^ mix) * PRIME;
+    }
+}
@@ -0,0 +1,64 @@
+package ru.vyarus.yaml.updater.parse.common.model;
+
+import ru.vyarus.yaml.updater.parse.common.YamlModelUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Property names symbol table. The same property names appear many times in both (comments and structure) trees
+ * of both (current and update) configs: with the symbol table, all equal names (raw and cleaned) are represented
+ * with the same string instance. Names comparison becomes identity check (see {@link String#equals(Object)}) and
+ * name hash is computed only once.
+ * <p>
+ * Table is used by parsers (names interned as nodes are created): the same table instance could be passed to
+ * all parsers, participating in one update. Cleaned name (see {@link YamlModelUtils#cleanPropertyName(String)})
+ * is computed only once for each raw name.
+ * <p>
+ * Table is assumed to be used for one update (all trees, participating in merge): it is not cleared, so shared table
+ * instance would hold all names ever used. Table is thread-safe (trees could be parsed in parallel).
+ *
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+public final class KeysTable {
+
+    private final Map<String, String> symbols = new ConcurrentHashMap<>();
+    // raw name symbol -> cleaned name symbol
+    private final Map<String, String> cleaned = new ConcurrentHashMap<>();
+
+    /**
+     * @param key property name (may be null)
+     * @return symbol for provided name (the same instance for all equal names)
+     */
+    public String intern(final String key) {
+        if (key == null) {
+            return null;
+        }
+        final String res = symbols.putIfAbsent(key, key);
+        return res == null ? key : res;
+    }
+
+    /**
+     * @param key raw property name, as written in file (may be null)
+     * @return symbol for cleaned property name (without quotes)
+     */
+    public String clean(final String key) {
+        if (key == null) {
+            return null;
+        }
+        String res = cleaned.get(key);
+        if (res == null) {
+            res = intern(YamlModelUtils.cleanPropertyName(key));
+            cleaned.putIfAbsent(intern(key), res);
+        }
+        return res;
+    }
+
+    /**
+     * @return count of known names
+     */
+    public int size() {
+        return symbols.size();
+    }
+}
@@ -0,0 +1,97 @@
+package ru.vyarus.yaml.updater.parse.common.model;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Tree leaves traversal without collecting leaves into list (see {@link TreeNode#forEachLeaf(Consumer)}). Not
+ * processed subtrees are stored in the queue (in tree order), so traversal could be split for parallel processing
+ * by subtrees (split part is always the beginning of the remaining leaves, so order is preserved).
+ * <p>
+ * Leaves are: scalar properties and properties with list values (not looking inside list values). Optionally,
+ * scalar list items could be included.
+ *
+ * @param <T> node type
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+class LeavesSpliterator<T extends YamlLine<T>> implements Spliterator<T> {
+
+    private final Deque<T> pending;
+    private final boolean includeScalarListItems;
+
+    LeavesSpliterator(final List<T> roots, final boolean includeScalarListItems) {
+        this(new ArrayDeque<>(roots), includeScalarListItems);
+    }
+
+    private LeavesSpliterator(final Deque<T> pending, final boolean includeScalarListItems) {
+        this.pending = pending;
+        this.includeScalarListItems = includeScalarListItems;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super T> action) {
+        while (!pending.isEmpty()) {
+            final T node = pending.pollFirst();
+            if (isLeaf(node)) {
+                action.accept(node);
+                return true;
+            }
+            expand(node);
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super T> action) {
+        while (!pending.isEmpty()) {
+            final T node = pending.pollFirst();
+            if (isLeaf(node)) {
+                action.accept(node);
+            } else {
+                expand(node);
+            }
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        // single subtree could be split by its children
+        while (pending.size() == 1 && !isLeaf(pending.peekFirst())) {
+            expand(pending.pollFirst());
+        }
+        if (pending.size() < 2) {
+            return null;
+        }
+        final Deque<T> prefix = new ArrayDeque<>();
+        for (int i = pending.size() / 2; i > 0; i--) {
+            prefix.addLast(pending.pollFirst());
+        }
+        return new LeavesSpliterator<>(prefix, includeScalarListItems);
+    }
+
+    @Override
+    public long estimateSize() {
+        return pending.isEmpty() ? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    private boolean isLeaf(final T node) {
+        // special case: scalar list items
+        return node.isTreeLeaf() || includeScalarListItems && !node.hasChildren() && node.isListItem();
+    }
+
+    private void expand(final T node) {
+        final List<T> children = node.getChildren();
+        for (int i = children.size() - 1; i >= 0; i--) {
+            pending.addFirst(children.get(i));
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package ru.vyarus.yaml.updater.parse.common.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+
+/**
+ * Children list of tree node. Tracks modifications: added nodes remember containing node (required to invalidate
+ * paths index of all parent nodes, see {@link TreeNode#find(String)}) and any modification invalidates owner node
+ * index and root properties map.
+ * <p>
+ * All list operations (including iterator and sub list modifications) go through {@link #add(int, YamlLine)},
+ * {@link #set(int, YamlLine)} and {@link #remove(int)}. Bulk removals ({@link #clear()},
+ * {@link #removeIf(Predicate)}) are performed in one pass.
+ *
+ * @param <T> child nodes type
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+class NodesList<T extends YamlLine<T>> extends AbstractList<T> implements RandomAccess {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private final TreeNode<T> owner;
+    private Object[] nodes = EMPTY;
+    private int size;
+
+    NodesList(final TreeNode<T> owner) {
+        this.owner = owner;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(final int index) {
+        checkIndex(index);
+        return (T) nodes[index];
+    }
+
+    /**
+     * Set operation is not counted because it does not change other nodes positions.
+     *
+     * @return list modifications count (changes when nodes positions could change)
+     */
+    int getModificationsCount() {
+        return modCount;
+    }
+
+    /**
+     * Position of attached node is resolved without list scan (see {@link YamlLine#getPosition()}).
+     *
+     * @param o node
+     * @return node position or -1
+     */
+    @Override
+    public int indexOf(final Object o) {
+        if (o instanceof YamlLine && ((YamlLine<?>) o).getContainer() == owner) {
+            return ((YamlLine<?>) o).getPosition();
+        }
+        // node could be in multiple lists (container is the last list node was added to)
+        return super.indexOf(o);
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return indexOf(o) >= 0;
+    }
+
+    @Override
+    public boolean remove(final Object o) {
+        final int index = indexOf(o);
+        if (index >= 0) {
+            remove(index);
+        }
+        return index >= 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public T set(final int index, final T element) {
+        final T res = get(index);
+        detach(res);
+        nodes[index] = element;
+        attach(element);
+        owner.childrenChanged();
+        return res;
+    }
+
+    @Override
+    public void add(final int index, final T element) {
+        if (index < 0 || index > size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        if (nodes.length == size) {
+            nodes = Arrays.copyOf(nodes, size == 0 ? 2 : size * 2);
+        }
+        if (index < size) {
+            System.arraycopy(nodes, index, nodes, index + 1, size - index);
+        }
+        nodes[index] = element;
+        size++;
+        modCount++;
+        attach(element);
+        owner.childrenChanged();
+    }
+
+    @Override
+    public T remove(final int index) {
+        final T res = get(index);
+        final int tail = size - index - 1;
+        if (tail > 0) {
+            System.arraycopy(nodes, index + 1, nodes, index, tail);
+        }
+        nodes[--size] = null;
+        modCount++;
+        detach(res);
+        owner.childrenChanged();
+        return res;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean removeIf(final Predicate<? super T> filter) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            final T node = (T) nodes[i];
+            if (filter.test(node)) {
+                detach(node);
+            } else {
+                nodes[kept++] = node;
+            }
+        }
+        if (kept == size) {
+            return false;
+        }
+        Arrays.fill(nodes, kept, size, null);
+        size = kept;
+        modCount++;
+        owner.childrenChanged();
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        removeRange(0, size);
+    }
+
+    @Override
+    protected void removeRange(final int fromIndex, final int toIndex) {
+        if (fromIndex == toIndex) {
+            return;
+        }
+        for (int i = fromIndex; i < toIndex; i++) {
+            detach(get(i));
+        }
+        System.arraycopy(nodes, toIndex, nodes, fromIndex, size - toIndex);
+        final int newSize = size - (toIndex - fromIndex);
+        Arrays.fill(nodes, newSize, size, null);
+        size = newSize;
+        modCount++;
+        owner.childrenChanged();
+    }
+
+    private void attach(final T node) {
+        node.setContainer(owner);
+    }
+
+    private void detach(final T node) {
+        if (node.getContainer() == owner) {
+            node.setContainer(null);
+        }
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+}
@@ -1,12 +1,23 @@
 package ru.vyarus.yaml.updater.parse.common.model;
 
-import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Universal tree-like structure. Required to unify both yaml lines tree and object, containing root nodes.
+ * <p>
+ * Search by path ({@link #find(String)}) use lazily built paths index (all sub nodes by relative path). Index is
+ * invalidated on any children list modification (on any level below) or node name change. Note that node
+ * modifications are propagated up to the node (or tree) it was last added to.
  *
  * @param <T> child nodes type
  * @author Vyacheslav Rusakov
@@ -14,7 +25,19 @@ import java.util.Map;
  */
 public abstract class TreeNode<T extends YamlLine<T>> implements LineNumberAware {
     private T root;
-    private final List<T> children = new ArrayList<>();
+    // node, containing this node in children list (differs from root for root level nodes)
+    private TreeNode<T> container;
+    // created on first access (not needed for read-only node views)
+    private List<T> children;
+    // sub nodes by relative path (built on first search)
+    private Map<YamlPath, T> pathIndex;
+    // sub nodes by string path for paths, which could not be parsed back (property name contains separator or
+    // list item-like suffix); built together with paths index (usually empty)
+    private Map<String, T> ambiguousPaths;
+    // true when node is a part of some paths index (modifications must invalidate it)
+    private boolean indexed;
+    // root properties by name (built on first request)
+    private Map<String, T> rootProperties;
 
     public TreeNode(final T root) {
         this.root = root;
@@ -34,36 +57,45 @@ public abstract class TreeNode<T extends YamlLine<T>> implements LineNumberAware
      */
     public void setRoot(final T root) {
         this.root = root;
+        invalidateContainerPathIndex();
     }
 
     /**
      * @return children nodes
      */
     public List<T> getChildren() {
+        if (children == null) {
+            children = new NodesList<>(this);
+        }
         return children;
     }
 
     /**
      * Note there might be comment-only nodes in case of comments parser and these are not included.
+     * <p>
+     * Map is cached until children list modification or child property name change.
      *
-     * @return map of root properties (preserving order)
+     * @return map of root properties (preserving order, not modifiable)
      */
     public Map<String, T> getRootProperties() {
-        final Map<String, T> res = new LinkedHashMap<>();
-        // only real properties counted!
-        for (T child : children) {
-            if (child.isProperty()) {
-                res.put(child.getKey(), child);
+        if (rootProperties == null) {
+            final Map<String, T> res = new LinkedHashMap<>();
+            // only real properties counted!
+            for (T child : getChildren()) {
+                if (child.isProperty()) {
+                    res.put(child.getKey(), child);
+                }
             }
+            rootProperties = Collections.unmodifiableMap(res);
         }
-        return res;
+        return rootProperties;
     }
 
     /**
      * @return true if has children
      */
     public boolean hasChildren() {
-        return !children.isEmpty();
+        return !getChildren().isEmpty();
     }
 
     /**
@@ -93,13 +125,32 @@ public abstract class TreeNode<T extends YamlLine<T>> implements LineNumberAware
     }
 
     /**
-     * Attaches provided nodes to current.
+     * Attaches provided nodes to current. Same as {@link #add(YamlLine)} for each node, but nodes are removed from
+     * previous roots at once (one pass for each previous root children list instead of removal by node).
      *
      * @param nodes nodes to add as child
      */
+    @SuppressWarnings("unchecked")
     public void addAll(final Iterable<T> nodes) {
+        final Set<T> moved = Collections.newSetFromMap(new IdentityHashMap<>());
+        final Set<T> roots = Collections.newSetFromMap(new IdentityHashMap<>());
         for (T node : nodes) {
-            add(node);
+            if (node.getRoot() != null) {
+                moved.add(node);
+                roots.add(node.getRoot());
+            }
+        }
+        // detach from old roots
+        for (T old : roots) {
+            old.getChildren().removeIf(moved::contains);
+        }
+        for (T node : nodes) {
+            // TreeRoot can't be used as root (virtual node)
+            if (!(this instanceof TreeRoot)) {
+                // attach to new root
+                node.setRoot((T) this);
+            }
+            getChildren().add(node);
         }
     }
 
@@ -110,6 +161,13 @@ public abstract class TreeNode<T extends YamlLine<T>> implements LineNumberAware
      */
     public abstract String getYamlPath();
 
+    /**
+     * Structured form of {@link #getYamlPath()}.
+     *
+     * @return property path in yaml structure or empty path for tree root
+     */
+    public abstract YamlPath getPath();
+
     /**
      * Cases:
      * - for property or object (or list) root:  "name"
@@ -123,17 +181,162 @@ public abstract class TreeNode<T extends YamlLine<T>> implements LineNumberAware
 
     /**
      * @return all scalar properties and properties with list values (not looking inside list values!)
+     * @see #forEachLeaf(Consumer) for traversal without collecting leaves
      */
     public abstract List<T> getTreeLeaves();
 
+    /**
+     * Leaves traversal, splittable for parallel processing (by subtrees). Leaves are the same as in
+     * {@link #getTreeLeaves()}, but not collected into list.
+     *
+     * @return leaves spliterator
+     */
+    public abstract Spliterator<T> leavesSpliterator();
+
+    /**
+     * Same as {@link #getTreeLeaves()}, but without collecting leaves into list.
+     *
+     * @param action action to apply for each leaf (in tree order)
+     */
+    public void forEachLeaf(final Consumer<? super T> action) {
+        leavesSpliterator().forEachRemaining(action);
+    }
+
+    /**
+     * @param parallel true for parallel stream
+     * @return stream of leaves (see {@link #getTreeLeaves()})
+     */
+    public Stream<T> leaves(final boolean parallel) {
+        return StreamSupport.stream(leavesSpliterator(), parallel);
+    }
+
     /**
      * Search for yaml node by path. For list items path should include exact item number (e.g. list[1]), wildcard
      * search not supported.
      * <p>
      * IMPORTANT: path must NOT include node itself (node from where search started)
+     * <p>
+     * Search use paths index (built on first call), so search time does not depend on tree size.
      *
      * @param path yaml path (with '/' as separator)
      * @return found node or null
+     * @see #find(YamlPath)
+     */
+    public T find(final String path) {
+        if (path == null) {
+            return null;
+        }
+        T res = find(YamlPath.parse(path));
+        if (res == null && !ambiguousPaths.isEmpty()) {
+            // property name could contain separator or list index-like suffix, so parsed path could be incorrect
+            res = ambiguousPaths.get(path);
+        }
+        return res;
+    }
+
+    /**
+     * Search for yaml node by relative path (same as {@link #find(String)}).
+     *
+     * @param path yaml path
+     * @return found node or null
      */
-    public abstract T find(String path);
+    public T find(final YamlPath path) {
+        if (pathIndex == null) {
+            final Map<YamlPath, T> index = new HashMap<>();
+            final Map<String, T> ambiguous = new HashMap<>();
+            indexPaths(this, YamlPath.EMPTY, false, index, ambiguous);
+            indexed = true;
+            ambiguousPaths = ambiguous;
+            pathIndex = index;
+        }
+        return pathIndex.get(path);
+    }
+
+    /**
+     * @return node, containing this node in children list
+     */
+    TreeNode<T> getContainer() {
+        return container;
+    }
+
+    /**
+     * @param container node, containing this node in children list
+     */
+    void setContainer(final TreeNode<T> container) {
+        this.container = container;
+    }
+
+    /**
+     * Drops cached root properties map and paths index (of this node and all upper nodes).
+     */
+    void childrenChanged() {
+        rootProperties = null;
+        invalidatePathIndex();
+    }
+
+    /**
+     * Property name change affects container node root properties and upper paths indexes.
+     */
+    void nameChanged() {
+        if (container != null) {
+            container.rootProperties = null;
+        }
+        invalidateContainerPathIndex();
+    }
+
+    /**
+     * Drops paths index of this node and all upper nodes (only for nodes participating in paths index).
+     */
+    void invalidatePathIndex() {
+        TreeNode<T> node = this;
+        // all sub nodes are marked on index creation, so there can't be valid index above not marked node
+        while (node != null && node.indexed) {
+            node.pathIndex = null;
+            node = node.container;
+        }
+    }
+
+    /**
+     * Node path change affects only upper indexes.
+     */
+    void invalidateContainerPathIndex() {
+        if (indexed && container != null) {
+            container.invalidatePathIndex();
+        }
+    }
+
+    private static <T extends YamlLine<T>> void indexPaths(final TreeNode<T> node,
+                                                           final YamlPath path,
+                                                           final boolean ambiguousPath,
+                                                           final Map<YamlPath, T> index,
+                                                           final Map<String, T> ambiguous) {
+        final List<T> nodes = node.getChildren();
+        for (int i = 0; i < nodes.size(); i++) {
+            final T child = nodes.get(i);
+            ((TreeNode<T>) child).indexed = true;
+            // same as YamlLine.getPath(), but without list item position search
+            final YamlPath childPath;
+            if (child.isProperty()) {
+                childPath = path.child(child.getKey());
+            } else if (child.isListItem()) {
+                childPath = path.item(i);
+            } else {
+                // comment-only node
+                continue;
+            }
+            // first node wins for duplicate paths (same as in sequential search)
+            index.putIfAbsent(childPath, child);
+            final boolean ambiguousChild = ambiguousPath || child.isProperty() && isAmbiguous(child.getKey());
+            if (ambiguousChild) {
+                // string path created only for such (rare) nodes
+                ambiguous.putIfAbsent(childPath.toString(), child);
+            }
+            indexPaths(child, childPath, ambiguousChild, index, ambiguous);
+        }
+    }
+
+    private static boolean isAmbiguous(final String key) {
+        // empty name is not rendered in string path
+        return key.isEmpty() || key.indexOf(YamlLine.PATH_SEPARATOR) >= 0 || key.indexOf('[') >= 0;
+    }
 }
@@ -1,9 +1,8 @@
 package ru.vyarus.yaml.updater.parse.common.model;
 
-import ru.vyarus.yaml.updater.parse.common.YamlModelUtils;
-
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Spliterator;
 
 /**
  * Base class for both comments and structure trees.
@@ -32,6 +31,14 @@ public abstract class TreeRoot<T extends YamlLine<T>> extends TreeNode<T> {
         return null;
     }
 
+    /**
+     * @return empty path as tree root does not have any yaml path
+     */
+    @Override
+    public YamlPath getPath() {
+        return YamlPath.EMPTY;
+    }
+
     /**
      * @return null as tree root does not have any yaml path
      */
@@ -60,26 +67,12 @@ public abstract class TreeRoot<T extends YamlLine<T>> extends TreeNode<T> {
     @Override
     public List<T> getTreeLeaves() {
         final List<T> res = new ArrayList<>();
-        for (T child : getChildren()) {
-            res.addAll(child.getTreeLeaves());
-        }
+        forEachLeaf(res::add);
         return res;
     }
 
     @Override
-    public T find(final String path) {
-        T res = null;
-        for (T child : getChildren()) {
-            final String elt = child.getYamlPathElement();
-            if (path.equals(elt)) {
-                res = child;
-            } else if (path.startsWith(elt)) {
-                res = child.find(YamlModelUtils.removeLeadingPath(elt, path));
-            }
-            if (res != null) {
-                break;
-            }
-        }
-        return res;
+    public Spliterator<T> leavesSpliterator() {
+        return new LeavesSpliterator<>(getChildren(), false);
     }
 }
@@ -1,10 +1,11 @@
 package ru.vyarus.yaml.updater.parse.common.model;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import ru.vyarus.yaml.updater.parse.common.YamlModelUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Spliterator;
 
 /**
  * Base class for comments and structure parsers. In both cases model represent one or more yaml file lines.
@@ -24,7 +25,7 @@ public abstract class YamlLine<T extends YamlLine<T>> extends TreeNode<T> {
     public static final char PATH_SEPARATOR = '/';
 
     // line number, counting from 1
-    private final int lineNum;
+    private int lineNum;
     private int padding;
     // property name, if property line
     private String key;
@@ -36,6 +37,18 @@ public abstract class YamlLine<T extends YamlLine<T>> extends TreeNode<T> {
     // (in this case this virtual dash object used as sub-hierarchy grouping node)
     private boolean listItemWithProperty;
 
+    // cached position in containing children list (valid until list modification)
+    private int position = -1;
+    private int positionStamp;
+    private String listPathElement;
+    // cached yaml path (valid while path element and parent path are the same)
+    private YamlPath path;
+    private String pathElement;
+    private YamlPath rootPath;
+    // subtree hash (computed on first request, dropped on modification)
+    private long subtreeHash;
+    private boolean hashed;
+
     @SuppressWarnings("unchecked")
     @SuppressFBWarnings("CT_CONSTRUCTOR_THROW")
     public YamlLine(final T root, final int padding, final int lineNum) {
@@ -74,6 +87,7 @@ public abstract class YamlLine<T extends YamlLine<T>> extends TreeNode<T> {
      */
     public void setPadding(final int padding) {
         this.padding = padding;
+        contentChanged();
     }
 
     /**
@@ -84,6 +98,19 @@ public abstract class YamlLine<T extends YamlLine<T>> extends TreeNode<T> {
         return lineNum;
     }
 
+    /**
+     * Shifts line numbers of node and all its sub nodes. Required when node is moved to the tree of changed file
+     * (lines added or removed above node).
+     *
+     * @param shift lines shift (negative to move node up)
+     */
+    public void shiftLines(final int shift) {
+        lineNum += shift;
+        for (T child : getChildren()) {
+            child.shiftLines(shift);
+        }
+    }
+
     /**
      * @return property name or null if line does not represent property
      */
@@ -96,6 +123,8 @@ public abstract class YamlLine<T extends YamlLine<T>> extends TreeNode<T> {
      */
     public void setKey(final String key) {
         this.key = key;
+        nameChanged();
+        contentChanged();
     }
 
     /**
@@ -113,6 +142,8 @@ public abstract class YamlLine<T extends YamlLine<T>> extends TreeNode<T> {
      */
     public void setListItem(final boolean listItem) {
         this.listItem = listItem;
+        invalidateContainerPathIndex();
+        contentChanged();
     }
 
     /**
@@ -127,6 +158,7 @@ public abstract class YamlLine<T extends YamlLine<T>> extends TreeNode<T> {
      */
     public void setListItemWithProperty(final boolean listItemWithProperty) {
         this.listItemWithProperty = listItemWithProperty;
+        contentChanged();
     }
 
     /**
@@ -150,6 +182,16 @@ public abstract class YamlLine<T extends YamlLine<T>> extends TreeNode<T> {
         return isObjectListItem() && !isListItemWithProperty();
     }
 
+    /**
+     * Leaf rule for all leaves traversals (see {@link #getTreeLeaves()}): scalar property or property with list
+     * value (list values are not traversed).
+     *
+     * @return true if node is a tree leaf
+     */
+    public boolean isTreeLeaf() {
+        return hasListValue() || !hasChildren() && isProperty();
+    }
+
     /**
      * Returned values assumed to be used in node comparisons.
      *
@@ -157,57 +199,162 @@ public abstract class YamlLine<T extends YamlLine<T>> extends TreeNode<T> {
      */
     public abstract String getIdentityValue();
 
+    /**
+     * Merkle-style hash of node content and all sub nodes: equal hashes mean identical subtrees (so subtree
+     * merge or validation could be avoided). Hash is computed on first request and cached until node or subtree
+     * modification (children lists modifications and node properties change). NOTE: direct modifications of
+     * value lists (e.g. comment lines) are not tracked.
+     *
+     * @return subtree hash
+     */
+    public long getSubtreeHash() {
+        if (!hashed) {
+            long res = computeContentHash();
+            for (T child : getChildren()) {
+                res = ContentHash.add(res, child.getSubtreeHash());
+            }
+            subtreeHash = res;
+            hashed = true;
+        }
+        return subtreeHash;
+    }
+
+    /**
+     * Content hash must include only node data, affecting comparison (see {@link ContentHash}).
+     *
+     * @return node content hash (without sub nodes)
+     */
+    protected abstract long computeContentHash();
+
+    /**
+     * Must be called on any node data modification, included into content hash. Drops hash of node and all upper
+     * nodes.
+     */
+    @SuppressWarnings("unchecked")
+    protected void contentChanged() {
+        TreeNode<T> node = this;
+        // hashed node could be only inside hashed parent (parent hash requires children hashes)
+        while (node instanceof YamlLine && ((YamlLine<T>) node).hashed) {
+            ((YamlLine<T>) node).hashed = false;
+            node = node.getContainer();
+        }
+    }
+
     @Override
-    @SuppressWarnings("PMD.UseStringBufferForStringAppends")
-    public String getYamlPath() {
+    void childrenChanged() {
+        super.childrenChanged();
+        contentChanged();
+    }
+
+    /**
+     * Path is cached: cached value is used while path element and parent path are the same (parent path is also
+     * cached, so check does not require any computations).
+     *
+     * @return property path in yaml structure (like prop1/prop2[3]/sub)
+     */
+    @Override
+    public YamlPath getPath() {
         final String elt = getYamlPathElement();
-        String path;
-        if (getRoot() == null) {
-            path = elt;
-        } else {
-            path = getRoot().getYamlPath();
-            if (!elt.isEmpty() && elt.charAt(0) != '[') {
-                path += PATH_SEPARATOR;
+        final YamlPath parentPath = getRoot() == null ? YamlPath.EMPTY : getRoot().getPath();
+        // identity comparison: same cached instances returned while path is not changed
+        if (path == null || elt != pathElement || parentPath != rootPath) {
+            YamlPath res = parentPath;
+            if (isProperty()) {
+                res = parentPath.child(elt);
+            } else if (isListItem()) {
+                res = parentPath.item(getListPosition());
             }
-            path += elt;
+            path = res;
+            pathElement = elt;
+            rootPath = parentPath;
         }
         return path;
     }
 
+    /**
+     * String is cached (see {@link #getPath()}).
+     *
+     * @return property path in yaml structure (like prop1/prop2[3]/sub)
+     */
+    @Override
+    public String getYamlPath() {
+        return getPath().toString();
+    }
+
+    /**
+     * List item position is cached (for all list items at once) until list modification.
+     *
+     * @return yaml path element represented by this node
+     */
     @Override
     public String getYamlPathElement() {
-        String path = "";
+        if (isProperty()) {
+            return getKey();
+        }
         if (isListItem()) {
-            path = "[" + getRoot().getChildren().indexOf(this) + "]";
+            return getListPathElement();
         }
-        if (isProperty()) {
-            path = getKey();
+        return "";
+    }
+
+    /**
+     * Positions are cached (for all children at once) until children list modification, so position resolution
+     * does not depend on list size.
+     *
+     * @return position in containing node children list (could be tree root) or -1 if node is not attached
+     */
+    @SuppressWarnings("unchecked")
+    public int getPosition() {
+        final TreeNode<T> container = getContainer();
+        if (container == null) {
+            return -1;
         }
-        return path;
+        final NodesList<T> list = (NodesList<T>) container.getChildren();
+        final int stamp = list.getModificationsCount();
+        if (position < 0 || positionStamp != stamp) {
+            // compute positions for all children at once (backwards, so the first occurrence wins for duplicates)
+            for (int i = list.size() - 1; i >= 0; i--) {
+                final YamlLine<T> item = list.get(i);
+                item.position = i;
+                item.positionStamp = stamp;
+                item.listPathElement = null;
+            }
+        }
+        return position;
     }
 
     @Override
-    public T find(final String path) {
-        T res = null;
-        for (T child : getChildren()) {
-            final String cpath = child.getYamlPathElement();
-            if (cpath.isEmpty()) {
-                // skip comment-only node
-                continue;
-            }
-            // compared paths are full paths (from root)
-            if (path.equals(cpath)) {
-                // found
-                res = child;
-            } else if (path.startsWith(cpath)) {
-                // if child fits, searching deeper
-                res = child.find(YamlModelUtils.removeLeadingPath(cpath, path));
-            }
-            if (res != null) {
-                break;
-            }
+    void setContainer(final TreeNode<T> container) {
+        super.setContainer(container);
+        // position in other list is not valid
+        position = -1;
+        listPathElement = null;
+    }
+
+    private String getListPathElement() {
+        final int index = getListPosition();
+        if (!isListPositionCached()) {
+            // node is not in parent's list: no caching
+            return "[" + index + "]";
         }
-        return res;
+        if (listPathElement == null) {
+            listPathElement = "[" + index + "]";
+        }
+        return listPathElement;
+    }
+
+    private int getListPosition() {
+        if (isListPositionCached()) {
+            return getPosition();
+        }
+        final TreeNode<T> parent = getRoot() == null ? getContainer() : getRoot();
+        return parent == null ? -1 : parent.getChildren().indexOf(this);
+    }
+
+    private boolean isListPositionCached() {
+        final TreeNode<T> container = getContainer();
+        // node must be in parent's list
+        return container != null && container == (getRoot() == null ? container : getRoot());
     }
 
     /**
@@ -218,13 +365,23 @@ public abstract class YamlLine<T extends YamlLine<T>> extends TreeNode<T> {
      * (but not properties inside list values!)
      */
     @Override
-    @SuppressWarnings("unchecked")
     public List<T> getTreeLeaves() {
         final List<T> res = new ArrayList<>();
-        findProperties((T) this, res, false);
+        forEachLeaf(res::add);
         return res;
     }
 
+    /**
+     * Leaves traversal includes node itself (node could be a leaf).
+     *
+     * @return leaves spliterator
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Spliterator<T> leavesSpliterator() {
+        return new LeavesSpliterator<>(Collections.singletonList((T) this), false);
+    }
+
     /**
      * Same as {@link #getTreeLeaves()} but also includes scalar list items for list nodes.
      *
@@ -233,19 +390,7 @@ public abstract class YamlLine<T extends YamlLine<T>> extends TreeNode<T> {
     @SuppressWarnings("unchecked")
     public List<T> getAllPropertiesIncludingScalarLists() {
         final List<T> res = new ArrayList<>();
-        findProperties((T) this, res, true);
+        new LeavesSpliterator<>(Collections.singletonList((T) this), true).forEachRemaining(res::add);
         return res;
     }
-
-    private void findProperties(final T node, final List<T> res, final boolean includeScalarListItems) {
-        if (node.isListItem() && !node.hasChildren() && includeScalarListItems) {
-            // special case: scalar list items required too
-            res.add(node);
-        } else if (node.hasListValue() || (!node.hasChildren() && node.isProperty())) {
-            // stop on list value or leaf property (no sub objects)
-            res.add(node);
-            return;
-        }
-        node.getChildren().forEach(t -> findProperties(t, res, includeScalarListItems));
-    }
 }
@@ -0,0 +1,333 @@
+package ru.vyarus.yaml.updater.parse.common.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable yaml path (like prop1/prop2[3]/sub). Path is stored as array of segments: property names (interned,
+ * so segments are compared by identity) and list item positions (null name slots). Hash is computed on path creation
+ * (incrementally, for child paths), so paths could be used as map keys without any computations.
+ * <p>
+ * String form ({@link #toString()}) is the same as {@link YamlLine#getYamlPath()} and is rendered only on demand.
+ * Path with list item positions replaced with wildcards ({@link #unifyListItems()}) is used to identify the same
+ * property in different list items (string form: prop1/prop2[*]/sub).
+ *
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+public final class YamlPath {
+
+    /**
+     * Empty path (tree root path).
+     */
+    public static final YamlPath EMPTY = new YamlPath(new String[0], new int[0], 0);
+
+    /**
+     * List item position used in unified paths (any list item).
+     */
+    public static final int WILDCARD = Integer.MIN_VALUE;
+
+    private static final int HASH_BASE = 31;
+    private static final int DECIMAL = 10;
+
+    // property names (interned), null for list item slots
+    private final String[] keys;
+    // list item positions (for null key slots)
+    private final int[] items;
+    private final int hash;
+    // lazy string form
+    private String path;
+    // lazy unified path (this instance when path contains no list positions)
+    private YamlPath unified;
+
+    private YamlPath(final String[] keys, final int[] items, final int hash) {
+        this.keys = keys;
+        this.items = items;
+        this.hash = hash;
+    }
+
+    /**
+     * Parse string path. Property names containing separator (or list item-like suffix, like name[1]) could not
+     * be correctly recognized (same ambiguity as for string paths).
+     *
+     * @param path path string (like prop1/prop2[3]/sub or relative list path [1]/sub)
+     * @return parsed path
+     */
+    public static YamlPath parse(final String path) {
+        final List<String> keys = new ArrayList<>();
+        final List<Integer> items = new ArrayList<>();
+        int start = 0;
+        while (start <= path.length()) {
+            int end = path.indexOf(YamlLine.PATH_SEPARATOR, start);
+            if (end < 0) {
+                end = path.length();
+            }
+            // list positions suffix (could be multiple positions for nested lists)
+            int itemsStart = end;
+            while (itemsStart > start && path.charAt(itemsStart - 1) == ']') {
+                final int open = path.lastIndexOf('[', itemsStart - 1);
+                if (open < start || !isItem(path, open + 1, itemsStart - 1)) {
+                    break;
+                }
+                itemsStart = open;
+            }
+            if (itemsStart > start || itemsStart == end) {
+                // property name (empty name for empty element)
+                keys.add(path.substring(start, itemsStart));
+                items.add(0);
+            }
+            int pos = itemsStart;
+            while (pos < end) {
+                final int close = path.indexOf(']', pos);
+                final String item = path.substring(pos + 1, close);
+                keys.add(null);
+                items.add("*".equals(item) ? WILDCARD : Integer.parseInt(item));
+                pos = close + 1;
+            }
+            start = end + 1;
+        }
+        if (path.isEmpty()) {
+            return EMPTY;
+        }
+        final String[] resKeys = new String[keys.size()];
+        final int[] resItems = new int[items.size()];
+        for (int i = 0; i < resKeys.length; i++) {
+            final String key = keys.get(i);
+            resKeys[i] = key == null ? null : key.intern();
+            resItems[i] = items.get(i);
+        }
+        return create(resKeys, resItems);
+    }
+
+    /**
+     * @param key property name
+     * @return child property path
+     */
+    public YamlPath child(final String key) {
+        return append(key.intern(), 0);
+    }
+
+    /**
+     * @param position list item position (or {@link #WILDCARD})
+     * @return list item path
+     */
+    public YamlPath item(final int position) {
+        return append(null, position);
+    }
+
+    /**
+     * @param relative relative path
+     * @return path with appended relative path
+     */
+    public YamlPath resolve(final YamlPath relative) {
+        if (relative.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return relative;
+        }
+        final String[] resKeys = Arrays.copyOf(keys, keys.length + relative.keys.length);
+        final int[] resItems = Arrays.copyOf(items, items.length + relative.items.length);
+        System.arraycopy(relative.keys, 0, resKeys, keys.length, relative.keys.length);
+        System.arraycopy(relative.items, 0, resItems, items.length, relative.items.length);
+        int resHash = hash;
+        for (int i = 0; i < relative.keys.length; i++) {
+            resHash = hash(resHash, relative.keys[i], relative.items[i]);
+        }
+        return new YamlPath(resKeys, resItems, resHash);
+    }
+
+    /**
+     * @return path length (segments count)
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return true for empty path
+     */
+    public boolean isEmpty() {
+        return keys.length == 0;
+    }
+
+    /**
+     * @param index segment index
+     * @return true if segment is a list item position
+     */
+    public boolean isListItem(final int index) {
+        return keys[index] == null;
+    }
+
+    /**
+     * @param index segment index
+     * @return property name or null for list item segment
+     */
+    public String getKey(final int index) {
+        return keys[index];
+    }
+
+    /**
+     * @param index list item segment index
+     * @return list item position (or {@link #WILDCARD})
+     */
+    public int getListPosition(final int index) {
+        if (keys[index] != null) {
+            throw new IllegalArgumentException("Segment " + index + " is not a list item in path: " + this);
+        }
+        return items[index];
+    }
+
+    /**
+     * @param prefix path
+     * @return true if path starts with provided path
+     */
+    public boolean startsWith(final YamlPath prefix) {
+        if (prefix.size() > size()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.size(); i++) {
+            if (keys[i] != prefix.keys[i] || items[i] != prefix.items[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cuts off leading path part (for relative search from sub node).
+     *
+     * @param from first segment index
+     * @return sub path
+     */
+    public YamlPath subPath(final int from) {
+        if (from == 0) {
+            return this;
+        }
+        return create(Arrays.copyOfRange(keys, from, keys.length), Arrays.copyOfRange(items, from, items.length));
+    }
+
+    /**
+     * Unified path is cached.
+     *
+     * @return path with all list item positions replaced with wildcard (to match the same property in any list item)
+     */
+    public YamlPath unifyListItems() {
+        if (unified == null) {
+            YamlPath res = this;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == null && items[i] != WILDCARD) {
+                    res = null;
+                    break;
+                }
+            }
+            if (res == null) {
+                final int[] resItems = items.clone();
+                for (int i = 0; i < keys.length; i++) {
+                    if (keys[i] == null) {
+                        resItems[i] = WILDCARD;
+                    }
+                }
+                res = create(keys, resItems);
+                res.unified = res;
+            }
+            unified = res;
+        }
+        return unified;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof YamlPath)) {
+            return false;
+        }
+        final YamlPath other = (YamlPath) o;
+        // names are interned
+        return hash == other.hash && keys.length == other.keys.length && startsWith(other);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * String is cached.
+     *
+     * @return path string (like prop1/prop2[3]/sub)
+     */
+    @Override
+    public String toString() {
+        if (path == null) {
+            final StringBuilder res = new StringBuilder();
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == null) {
+                    res.append('[').append(items[i] == WILDCARD ? "*" : String.valueOf(items[i])).append(']');
+                } else if (!keys[i].isEmpty()) {
+                    if (i > 0) {
+                        res.append(YamlLine.PATH_SEPARATOR);
+                    }
+                    res.append(keys[i]);
+                }
+            }
+            path = res.toString();
+        }
+        return path;
+    }
+
+    /**
+     * Path hash could be computed without path object creation (e.g. for external paths index): empty path hash
+     * is 0 and each appended segment hash is computed from parent path hash.
+     *
+     * @param hash parent path hash
+     * @param key  property name or null for list item segment
+     * @param item list item position (ignored for property segment)
+     * @return hash of parent path with appended segment (the same as {@link #hashCode()} of resulted path)
+     */
+    public static int hash(final int hash, final String key, final int item) {
+        // list item and property segments must produce different hashes
+        return HASH_BASE * hash + (key == null ? ~item : key.hashCode());
+    }
+
+    private YamlPath append(final String key, final int item) {
+        final String[] resKeys = Arrays.copyOf(keys, keys.length + 1);
+        final int[] resItems = Arrays.copyOf(items, items.length + 1);
+        resKeys[keys.length] = key;
+        resItems[items.length] = item;
+        return new YamlPath(resKeys, resItems, hash(hash, key, item));
+    }
+
+    private static YamlPath create(final String[] keys, final int[] items) {
+        int hash = 0;
+        for (int i = 0; i < keys.length; i++) {
+            hash = hash(hash, keys[i], items[i]);
+        }
+        return new YamlPath(keys, items, hash);
+    }
+
+    private static boolean isItem(final String path, final int start, final int end) {
+        if (start >= end) {
+            return false;
+        }
+        if (end - start == 1 && path.charAt(start) == '*') {
+            return true;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            final char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+            value = value * DECIMAL + c - '0';
+            // too large position can't be a list item (segment would be a property name)
+            if (value > Integer.MAX_VALUE) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,268 @@
+package ru.vyarus.yaml.updater.parse.fused;
+
+import ru.vyarus.yaml.updater.parse.comments.CommentsReader;
+import ru.vyarus.yaml.updater.parse.comments.model.CmtNode;
+import ru.vyarus.yaml.updater.parse.comments.model.CmtTree;
+import ru.vyarus.yaml.updater.parse.comments.util.TextLinesIterator;
+import ru.vyarus.yaml.updater.parse.common.model.KeysTable;
+import ru.vyarus.yaml.updater.parse.struct.StructEventReader;
+import ru.vyarus.yaml.updater.parse.struct.YamlParserEngine;
+import ru.vyarus.yaml.updater.parse.struct.model.StructNode;
+import ru.vyarus.yaml.updater.parse.struct.model.StructTree;
+import ru.vyarus.yaml.updater.update.CommentsParserValidator;
+import ru.vyarus.yaml.updater.util.CharBufferReader;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Parallel parser for huge yaml files. Root level properties are independent subtrees, so yaml could be split by
+ * root property lines into chunks, parsed with snakeyaml in parallel and then chunk trees stitched together.
+ * <p>
+ * Comments parser is much faster than snakeyaml (simple lines scanning), so it is executed for the entire yaml first:
+ * resulted tree provides exact root properties lines (correctly counting multiline values and comments) used for
+ * splitting. Snakeyaml parses chunks (with shifted line numbers, so resulted nodes contain absolute line numbers) and
+ * each chunk is validated against the corresponding comments tree part in the same task.
+ * <p>
+ * Chunk parse could fail for valid yaml in rare cases (anchor defined in one chunk and used in another, custom tag
+ * directive). In this case (and for invalid yaml), yaml is parsed sequentially with {@link FusedReader} (so errors are
+ * reported exactly the same).
+ * <p>
+ * Not suitable for small files: by default, chunks smaller than 64kb are not created (so small files would be
+ * parsed with a single chunk).
+ *
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+public final class ChunkedReader {
+
+    // more chunks than threads for better load balancing
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+    private ChunkedReader() {
+    }
+
+    /**
+     * Comments tree would reference source string (see {@link CommentsReader#read(String)}).
+     *
+     * @param yaml   yaml string
+     * @param engine snakeyaml components
+     * @param pool   pool to parse chunks with
+     * @return parsed trees
+     */
+    public static ParsedTrees read(final String yaml, final YamlParserEngine engine, final ForkJoinPool pool) {
+        return read(yaml, engine, pool, 0);
+    }
+
+    /**
+     * @param yaml      yaml string
+     * @param engine    snakeyaml components
+     * @param pool      pool to parse chunks with
+     * @param chunkSize minimal chunk size (chars) or 0 to compute it by pool parallelism
+     * @return parsed trees
+     * @see #read(String, YamlParserEngine, ForkJoinPool)
+     */
+    public static ParsedTrees read(final String yaml,
+                                   final YamlParserEngine engine,
+                                   final ForkJoinPool pool,
+                                   final int chunkSize) {
+        return read(yaml, engine, pool, chunkSize, new KeysTable());
+    }
+
+    /**
+     * @param yaml      yaml string
+     * @param engine    snakeyaml components
+     * @param pool      pool to parse chunks with
+     * @param chunkSize minimal chunk size (chars) or 0 to compute it by pool parallelism
+     * @param keys      property names symbol table (shared by all chunks)
+     * @return parsed trees
+     * @see #read(String, YamlParserEngine, ForkJoinPool)
+     */
+    public static ParsedTrees read(final String yaml,
+                                   final YamlParserEngine engine,
+                                   final ForkJoinPool pool,
+                                   final int chunkSize,
+                                   final KeysTable keys) {
+        final CmtTree comments;
+        try {
+            comments = CommentsReader.read(yaml, keys);
+        } catch (Exception ex) {
+            // sequential parse to report snakeyaml error first
+            return FusedReader.read(yaml, engine, keys);
+        }
+        final ParsedTrees res = read(yaml, false, comments, engine, pool, chunkSize, keys);
+        return res != null ? res : FusedReader.read(yaml, engine, keys);
+    }
+
+    /**
+     * Read already decoded file content (e.g. memory mapped file, see
+     * {@link ru.vyarus.yaml.updater.util.FileUtils#readMapped(java.io.File)}). Buffer position is not changed.
+     *
+     * @param yaml   yaml file content
+     * @param engine snakeyaml components
+     * @param pool   pool to parse chunks with
+     * @return parsed trees
+     */
+    public static ParsedTrees read(final CharBuffer yaml, final YamlParserEngine engine, final ForkJoinPool pool) {
+        return read(yaml, engine, pool, 0);
+    }
+
+    /**
+     * @param yaml      yaml file content
+     * @param engine    snakeyaml components
+     * @param pool      pool to parse chunks with
+     * @param chunkSize minimal chunk size (chars) or 0 to compute it by pool parallelism
+     * @return parsed trees
+     * @see #read(CharBuffer, YamlParserEngine, ForkJoinPool)
+     */
+    public static ParsedTrees read(final CharBuffer yaml,
+                                   final YamlParserEngine engine,
+                                   final ForkJoinPool pool,
+                                   final int chunkSize) {
+        return read(yaml, engine, pool, chunkSize, new KeysTable());
+    }
+
+    /**
+     * @param yaml      yaml file content
+     * @param engine    snakeyaml components
+     * @param pool      pool to parse chunks with
+     * @param chunkSize minimal chunk size (chars) or 0 to compute it by pool parallelism
+     * @param keys      property names symbol table (shared by all chunks)
+     * @return parsed trees
+     * @see #read(CharBuffer, YamlParserEngine, ForkJoinPool)
+     */
+    public static ParsedTrees read(final CharBuffer yaml,
+                                   final YamlParserEngine engine,
+                                   final ForkJoinPool pool,
+                                   final int chunkSize,
+                                   final KeysTable keys) {
+        final CmtTree comments;
+        try {
+            comments = CommentsReader.read(yaml, keys);
+        } catch (Exception ex) {
+            // sequential parse to report snakeyaml error first
+            return FusedReader.read(yaml, engine, keys);
+        }
+        final ParsedTrees res = read(yaml.duplicate(), true, comments, engine, pool, chunkSize, keys);
+        return res != null ? res : FusedReader.read(yaml, engine, keys);
+    }
+
+    private static ParsedTrees read(final CharSequence yaml,
+                                    final boolean fileMode,
+                                    final CmtTree comments,
+                                    final YamlParserEngine engine,
+                                    final ForkJoinPool pool,
+                                    final int chunkSize,
+                                    final KeysTable keys) {
+        final List<Chunk> chunks = split(yaml, fileMode, comments, chunkSize > 0 ? chunkSize
+                : Math.max(MIN_CHUNK_SIZE, yaml.length() / (pool.getParallelism() * CHUNKS_PER_THREAD)));
+        final List<ForkJoinTask<Boolean>> tasks = new ArrayList<>(chunks.size());
+        for (Chunk chunk : chunks) {
+            tasks.add(pool.submit(() -> chunk.parse(yaml, engine, keys)));
+        }
+        final List<StructNode> roots = new ArrayList<>();
+        boolean validated = true;
+        int linesCnt = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            try {
+                validated &= tasks.get(i).join();
+            } catch (Exception ex) {
+                // could be valid yaml, which can't be split (e.g. alias to anchor in other chunk)
+                tasks.forEach(task -> task.cancel(false));
+                return null;
+            }
+            final StructTree tree = chunks.get(i).structure;
+            roots.addAll(tree.getChildren());
+            linesCnt = tree.getLinesCnt();
+        }
+        // chunk trees were created with the same root nodes (re-attaching nodes to the resulted tree)
+        return new ParsedTrees(new CmtTree(comments.getChildren(), comments.getLinesCnt()),
+                new StructTree(roots, linesCnt), validated);
+    }
+
+    /**
+     * Split yaml by root properties lines (detected by comments parser).
+     *
+     * @param yaml      yaml content
+     * @param fileMode  lines splitting mode
+     * @param comments  comments parser tree for entire yaml
+     * @param chunkSize minimal chunk size
+     * @return chunks (at least one)
+     */
+    private static List<Chunk> split(final CharSequence yaml,
+                                     final boolean fileMode,
+                                     final CmtTree comments,
+                                     final int chunkSize) {
+        final List<Chunk> res = new ArrayList<>();
+        Chunk chunk = new Chunk(0, 0);
+        res.add(chunk);
+        if (yaml.length() > chunkSize) {
+            final TextLinesIterator lines = new TextLinesIterator(yaml, fileMode);
+            int lineNum = 0;
+            for (CmtNode node : comments.getChildren()) {
+                // only root mapping property could start new chunk
+                if (node.getPadding() == 0 && node.isProperty()) {
+                    while (lineNum < node.getLineNum() && lines.hasNext()) {
+                        lines.advance();
+                        lineNum++;
+                    }
+                    if (lineNum > chunk.startLine + 1 && lines.getLineStart() - chunk.start >= chunkSize) {
+                        chunk.end = lines.getLineStart();
+                        chunk = new Chunk(lines.getLineStart(), lineNum - 1);
+                        res.add(chunk);
+                    }
+                }
+                chunk.comments.add(node);
+            }
+        } else {
+            chunk.comments.addAll(comments.getChildren());
+        }
+        chunk.end = yaml.length();
+        return res;
+    }
+
+    /**
+     * Yaml part, starting with root property line (or file start).
+     */
+    @SuppressWarnings("checkstyle:VisibilityModifier")
+    private static class Chunk {
+        final int start;
+        // lines before chunk
+        final int startLine;
+        int end;
+        // comments parser root nodes, corresponding to chunk
+        final List<CmtNode> comments = new ArrayList<>();
+        StructTree structure;
+
+        Chunk(final int start, final int startLine) {
+            this.start = start;
+            this.startLine = startLine;
+        }
+
+        /**
+         * @param yaml   entire yaml
+         * @param engine snakeyaml components
+         * @param keys   property names symbol table
+         * @return true if chunk trees are equal
+         */
+        public boolean parse(final CharSequence yaml, final YamlParserEngine engine, final KeysTable keys) {
+            final CharSequence text = yaml.subSequence(start, end);
+            final Reader reader = text instanceof CharBuffer
+                    ? new CharBufferReader((CharBuffer) text) : new StringReader(text.toString());
+            structure = new StructEventReader(reader, engine, startLine, keys).getTree();
+            try {
+                // assign parsed values (trees validated again for detailed error if not equal)
+                CommentsParserValidator.validate(new CmtTree(comments, 0), structure);
+                return true;
+            } catch (Exception ex) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package ru.vyarus.yaml.updater.parse.fused;
+
+import ru.vyarus.yaml.updater.parse.comments.CommentsReader;
+import ru.vyarus.yaml.updater.parse.comments.model.CmtNode;
+import ru.vyarus.yaml.updater.parse.common.model.KeysTable;
+import ru.vyarus.yaml.updater.parse.struct.StructEventReader;
+import ru.vyarus.yaml.updater.parse.struct.YamlParserEngine;
+import ru.vyarus.yaml.updater.parse.struct.model.StructNode;
+import ru.vyarus.yaml.updater.parse.struct.model.StructTree;
+import ru.vyarus.yaml.updater.util.CharBufferReader;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Single-pass parser: snakeyaml parser events ({@link StructEventReader}) and comments parser lines
+ * ({@link CommentsReader.NodesReader}) are processed together, so both trees are built in one run (instead of two
+ * separate parsings of the same content and following trees comparison).
+ * <p>
+ * Snakeyaml nodes drive the process: after each snakeyaml node, comments parser reads lines up to the next node.
+ * Nodes are compared immediately (same parent and same property name - exactly the same checks as
+ * {@link ru.vyarus.yaml.updater.update.CommentsParserValidator} performs) and parsed value is assigned to comments
+ * node. If trees appear different, both parsers just complete parsing and the result is marked as not validated
+ * (so {@link ru.vyarus.yaml.updater.update.CommentsParserValidator} could be used to produce detailed error).
+ * <p>
+ * Invalid yaml is always reported with snakeyaml error (even if comments parser fails first).
+ *
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+public final class FusedReader {
+
+    private FusedReader() {
+    }
+
+    /**
+     * File is streamed by both parsers (content never loaded completely).
+     *
+     * @param file yaml file
+     * @return parsed trees
+     */
+    public static ParsedTrees read(final File file) {
+        return read(file, YamlParserEngine.getDefault());
+    }
+
+    /**
+     * @param file   yaml file
+     * @param engine snakeyaml components
+     * @return parsed trees
+     * @see #read(java.io.File)
+     */
+    public static ParsedTrees read(final File file, final YamlParserEngine engine) {
+        return read(file, engine, new KeysTable());
+    }
+
+    /**
+     * @param file   yaml file
+     * @param engine snakeyaml components
+     * @param keys   property names symbol table (shared by both parsers)
+     * @return parsed trees
+     * @see #read(java.io.File)
+     */
+    public static ParsedTrees read(final File file, final YamlParserEngine engine, final KeysTable keys) {
+        try (InputStream in = Files.newInputStream(file.toPath());
+             Reader lines = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            return read(new StructEventReader(new InputStreamReader(in, StandardCharsets.UTF_8), engine, 0, keys),
+                    CommentsReader.readIncrementally(lines, keys));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to parse yaml file: " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Comments tree would reference source string (see {@link CommentsReader#read(String)}).
+     *
+     * @param yaml yaml string
+     * @return parsed trees
+     */
+    public static ParsedTrees read(final String yaml) {
+        return read(yaml, YamlParserEngine.getDefault());
+    }
+
+    /**
+     * @param yaml   yaml string
+     * @param engine snakeyaml components
+     * @return parsed trees
+     * @see #read(String)
+     */
+    public static ParsedTrees read(final String yaml, final YamlParserEngine engine) {
+        return read(yaml, engine, new KeysTable());
+    }
+
+    /**
+     * @param yaml   yaml string
+     * @param engine snakeyaml components
+     * @param keys   property names symbol table (shared by both parsers)
+     * @return parsed trees
+     * @see #read(String)
+     */
+    public static ParsedTrees read(final String yaml, final YamlParserEngine engine, final KeysTable keys) {
+        try {
+            return read(new StructEventReader(new StringReader(yaml), engine, 0, keys),
+                    CommentsReader.readIncrementally(yaml, keys));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to parse yaml", e);
+        }
+    }
+
+    /**
+     * Read already decoded file content (e.g. memory mapped file, see
+     * {@link ru.vyarus.yaml.updater.util.FileUtils#readMapped(java.io.File)}). Buffer position is not changed.
+     *
+     * @param yaml yaml file content
+     * @return parsed trees
+     */
+    public static ParsedTrees read(final CharBuffer yaml) {
+        return read(yaml, YamlParserEngine.getDefault());
+    }
+
+    /**
+     * @param yaml   yaml file content
+     * @param engine snakeyaml components
+     * @return parsed trees
+     * @see #read(java.nio.CharBuffer)
+     */
+    public static ParsedTrees read(final CharBuffer yaml, final YamlParserEngine engine) {
+        return read(yaml, engine, new KeysTable());
+    }
+
+    /**
+     * @param yaml   yaml file content
+     * @param engine snakeyaml components
+     * @param keys   property names symbol table (shared by both parsers)
+     * @return parsed trees
+     * @see #read(java.nio.CharBuffer)
+     */
+    public static ParsedTrees read(final CharBuffer yaml, final YamlParserEngine engine, final KeysTable keys) {
+        try {
+            return read(new StructEventReader(new CharBufferReader(yaml), engine, 0, keys),
+                    CommentsReader.readIncrementally(yaml, keys));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to parse yaml", e);
+        }
+    }
+
+    private static ParsedTrees read(final StructEventReader struct, final CommentsReader.NodesReader comments) {
+        // matched nodes path (for parents comparison)
+        final Deque<StructNode> strPath = new ArrayDeque<>();
+        final Deque<CmtNode> cmtPath = new ArrayDeque<>();
+        boolean validated = true;
+        StructNode node;
+        while (validated && (node = struct.nextNode()) != null) {
+            validated = match(node, nextComment(comments, struct), strPath, cmtPath);
+        }
+        // no more nodes in comments tree
+        if (validated && nextComment(comments, struct) != null) {
+            validated = false;
+        }
+        // complete parsing in case of difference (snakeyaml first to detect invalid yaml)
+        final StructTree structure = struct.getTree();
+        return new ParsedTrees(comments.getTree(), structure, validated);
+    }
+
+    private static boolean match(final StructNode node,
+                                 final CmtNode line,
+                                 final Deque<StructNode> strPath,
+                                 final Deque<CmtNode> cmtPath) {
+        // go back to matched parent
+        while (!strPath.isEmpty() && strPath.peek() != node.getRoot()) {
+            strPath.pop();
+            cmtPath.pop();
+        }
+        if (line == null || strPath.peek() != node.getRoot() || line.getRoot() != cmtPath.peek()
+                || line.isProperty() && !line.getKey().equals(node.getKey())) {
+            return false;
+        }
+        if (line.isProperty()) {
+            // store correctly parsed value (without comments) for precise list items matching
+            if (node.isLazyValue()) {
+                // avoid computing value if it would not be used
+                line.setLazyParsedValue(node::getValue);
+            } else {
+                line.setParsedValue(node.getValue());
+            }
+        }
+        strPath.push(node);
+        cmtPath.push(line);
+        return true;
+    }
+
+    private static CmtNode nextComment(final CommentsReader.NodesReader comments, final StructEventReader struct) {
+        try {
+            CmtNode res = comments.nextNode();
+            // "fake" node in comments parser for preserving trailing comment
+            while (res != null && res.isCommentOnly()) {
+                res = comments.nextNode();
+            }
+            return res;
+        } catch (Exception ex) {
+            // comments parser assumes valid yaml, so snakeyaml error is more important
+            struct.getTree();
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ru.vyarus.yaml.updater.parse.fused;
+
+import ru.vyarus.yaml.updater.parse.comments.model.CmtTree;
+import ru.vyarus.yaml.updater.parse.struct.model.StructTree;
+
+/**
+ * Result of {@link FusedReader}: both comments parser and snakeyaml trees for the same yaml.
+ *
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+public class ParsedTrees {
+
+    private final CmtTree comments;
+    private final StructTree structure;
+    private final boolean validated;
+
+    public ParsedTrees(final CmtTree comments, final StructTree structure, final boolean validated) {
+        this.comments = comments;
+        this.structure = structure;
+        this.validated = validated;
+    }
+
+    /**
+     * @return comments parser tree
+     */
+    public CmtTree getComments() {
+        return comments;
+    }
+
+    /**
+     * @return snakeyaml parser tree
+     */
+    public StructTree getStructure() {
+        return structure;
+    }
+
+    /**
+     * When trees are equal, parsed values are already assigned in comments tree (exactly as
+     * {@link ru.vyarus.yaml.updater.update.CommentsParserValidator} does). Otherwise,
+     * {@link ru.vyarus.yaml.updater.update.CommentsParserValidator#validate(CmtTree, StructTree)} must be used to
+     * get detailed error.
+     *
+     * @return true if trees structure was validated during parsing, false if trees are different
+     */
+    public boolean isValidated() {
+        return validated;
+    }
+}
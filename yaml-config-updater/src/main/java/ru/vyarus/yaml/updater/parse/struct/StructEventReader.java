@@ -0,0 +1,541 @@
+package ru.vyarus.yaml.updater.parse.struct;
+
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.error.Mark;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.events.AliasEvent;
+import org.yaml.snakeyaml.events.CollectionEndEvent;
+import org.yaml.snakeyaml.events.CollectionStartEvent;
+import org.yaml.snakeyaml.events.DocumentEndEvent;
+import org.yaml.snakeyaml.events.DocumentStartEvent;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.MappingEndEvent;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.NodeEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.events.SequenceEndEvent;
+import org.yaml.snakeyaml.events.SequenceStartEvent;
+import org.yaml.snakeyaml.events.StreamEndEvent;
+import org.yaml.snakeyaml.events.StreamStartEvent;
+import org.yaml.snakeyaml.parser.Parser;
+import ru.vyarus.yaml.updater.parse.common.YamlModelUtils;
+import ru.vyarus.yaml.updater.parse.common.model.KeysTable;
+import ru.vyarus.yaml.updater.parse.struct.model.StructNode;
+import ru.vyarus.yaml.updater.parse.struct.model.StructTree;
+
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Incremental snakeyaml-based parser, working directly on parser events (without composing snakeyaml node graph,
+ * which would double memory usage for large files). Builds exactly the same structure as comments parser. Nodes are
+ * returned one by one (in the same order as they appear in file) with {@link #nextNode()}, so structure could be
+ * processed together with lines (e.g. with comments parser). Use {@link #getTree()} to parse entire yaml
+ * ({@link StructureReader} shortcut).
+ * <p>
+ * Aliases are resolved by replaying anchored node events (the same as snakeyaml composer use the same node for
+ * anchor and alias). Flow-style collections ({@code [1, 2]} or {@code {one: 1}}) are still composed with snakeyaml
+ * (only collection itself) to serialize them into string value, but only when value is requested (lazy value).
+ * <p>
+ * Reader is not closed.
+ *
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+@SuppressWarnings({"checkstyle:ClassDataAbstractionCoupling", "checkstyle:ClassFanOutComplexity",
+        "PMD.GodClass", "PMD.CyclomaticComplexity"})
+public class StructEventReader {
+
+    private final YamlParserEngine engine;
+    private final LoaderOptions options;
+    private final Parser parser;
+    // lines before parsed content (when part of larger yaml parsed)
+    private final int lineOffset;
+    private final Context context;
+    // opened collections (true for mapping)
+    private final Deque<Frame> frames = new ArrayDeque<>();
+    // events of resolved aliases
+    private final Deque<Event> replay = new ArrayDeque<>();
+    private final Map<String, List<Event>> anchors = new HashMap<>();
+    // anchored nodes events being recorded
+    private final List<Recording> recordings = new ArrayList<>();
+    private int collectionAliases;
+    private boolean documentProcessed;
+    private boolean finished;
+    private int linesCnt;
+    // end marks of the current and previous events (to look back in previous reader window)
+    private Mark currentEnd;
+    private Mark previousEnd;
+
+    /**
+     * @param reader yaml content reader
+     */
+    public StructEventReader(final Reader reader) {
+        this(reader, YamlParserEngine.getDefault());
+    }
+
+    /**
+     * @param reader yaml content reader
+     * @param engine snakeyaml components
+     */
+    public StructEventReader(final Reader reader, final YamlParserEngine engine) {
+        this(reader, engine, 0);
+    }
+
+    /**
+     * Used for parsing part of a larger yaml (see {@link ru.vyarus.yaml.updater.parse.fused.ChunkedReader}):
+     * all line numbers (and lines count) are shifted by the provided offset.
+     *
+     * @param reader     yaml content reader
+     * @param engine     snakeyaml components
+     * @param lineOffset lines count before parsed content
+     */
+    public StructEventReader(final Reader reader, final YamlParserEngine engine, final int lineOffset) {
+        this(reader, engine, lineOffset, new KeysTable());
+    }
+
+    /**
+     * @param reader     yaml content reader
+     * @param engine     snakeyaml components
+     * @param lineOffset lines count before parsed content
+     * @param keys       property names symbol table
+     * @see #StructEventReader(Reader, YamlParserEngine, int)
+     */
+    public StructEventReader(final Reader reader,
+                             final YamlParserEngine engine,
+                             final int lineOffset,
+                             final KeysTable keys) {
+        this.context = new Context(keys);
+        this.lineOffset = lineOffset;
+        this.engine = engine;
+        this.options = engine.getLoaderOptions();
+        this.parser = engine.createParser(reader);
+    }
+
+    /**
+     * Parse yaml up to the next node. Parsed node is already attached to the tree, but its value might be not
+     * complete yet (children not parsed).
+     *
+     * @return next parsed node or null if all yaml processed
+     */
+    public StructNode nextNode() {
+        StructNode res = null;
+        while (res == null && !finished) {
+            res = process(nextEvent());
+        }
+        return res;
+    }
+
+    /**
+     * Parses remaining yaml (if not parsed yet).
+     *
+     * @return parsed yaml model tree
+     */
+    public StructTree getTree() {
+        while (nextNode() != null) {
+            // consume all nodes
+        }
+        return new StructTree(context.rootNodes, linesCnt);
+    }
+
+    @SuppressWarnings({"checkstyle:CyclomaticComplexity", "checkstyle:MissingSwitchDefault",
+            "PMD.SwitchStmtsShouldHaveDefault"})
+    private StructNode process(final Event event) {
+        StructNode res = null;
+        switch (event.getEventId()) {
+            case DocumentStart:
+                if (documentProcessed) {
+                    // comments parser does not support multiple yaml documents (not common for configs)
+                    throw new IllegalStateException("Expected a single document in the stream, but found another "
+                            + "document" + event.getStartMark());
+                }
+                break;
+            case DocumentEnd:
+                documentProcessed = true;
+                break;
+            case StreamEnd:
+                finished = true;
+                break;
+            case MappingEnd:
+            case SequenceEnd:
+                frames.pop();
+                if (frames.isEmpty()) {
+                    linesCnt = lineOffset + event.getEndMark().getLine() + 1;
+                }
+                break;
+            case Scalar:
+            case MappingStart:
+            case SequenceStart:
+                res = processNode((NodeEvent) event);
+                break;
+        }
+        return res;
+    }
+
+    private StructNode processNode(final NodeEvent event) {
+        final Frame frame = frames.peek();
+        if (frame == null) {
+            // document root
+            if (!(event instanceof CollectionStartEvent) || ((CollectionStartEvent) event).isFlow()) {
+                throw new IllegalStateException("Unsupported node type: " + event);
+            }
+            openCollection((CollectionStartEvent) event);
+            return null;
+        }
+        return frame.mapping ? processProperty(frame, event) : processListItem(event);
+    }
+
+    private StructNode processProperty(final Frame frame, final NodeEvent event) {
+        if (frame.key == null) {
+            if (!(event instanceof ScalarEvent)) {
+                throw new IllegalStateException("Unsupported key node type " + event);
+            }
+            frame.key = (ScalarEvent) event;
+            return null;
+        }
+        final ScalarEvent key = frame.key;
+        frame.key = null;
+        context.lineNum = lineOffset + key.getStartMark().getLine() + 1;
+        final int padding = key.getStartMark().getColumn();
+        if (event instanceof ScalarEvent) {
+            context.property(padding, key.getValue(), ((ScalarEvent) event).getValue());
+        } else {
+            final CollectionStartEvent collection = (CollectionStartEvent) event;
+            context.property(padding, key.getValue(), null);
+            // lists or sub objects
+            processCollection(collection);
+        }
+        return context.current;
+    }
+
+    private StructNode processListItem(final NodeEvent event) {
+        // need position of dash, which is absent here, so just assuming -2 shift from value
+        final int listPad = event.getStartMark().getColumn() - 2;
+        context.lineNum = lineOffset + event.getStartMark().getLine() + 1;
+        if (event instanceof ScalarEvent) {
+            // simple value
+            context.listValue(listPad, ((ScalarEvent) event).getValue());
+        } else {
+            final boolean tickSameLine = isTickOnSameLine(event.getStartMark());
+            if (!tickSameLine) {
+                // case when properties start after empty dash (next line)
+                // and hierarchically it must be reproduced (unification with comments parser)
+
+                // it is impossible to know EXACTLY what line is tick on, but in most cases it would be previous
+                context.lineNum--;
+                context.listValue(listPad, null);
+            } else {
+                // sub object: use virtual node (indicating dash) to group sub-object properties
+                context.virtualListItemNode(listPad);
+            }
+            processCollection((CollectionStartEvent) event);
+        }
+        return context.current;
+    }
+
+    /**
+     * Checks if list item value starts on the same line with dash. Mark snippet can't be used for this because it's
+     * limited by snippet length (long lines) and current reader window: reader window starts from the current
+     * position on each read, so for large files line start might be already out of mark buffer. In this case,
+     * previous event mark buffer is used (contains previous reader window).
+     *
+     * @param mark list item value start mark
+     * @return true if dash is on the same line
+     */
+    private boolean isTickOnSameLine(final Mark mark) {
+        final int[] buffer = mark.getBuffer();
+        int pos = mark.getPointer() - 1;
+        while (pos >= 0 && buffer[pos] == ' ') {
+            pos--;
+        }
+        if (pos >= 0) {
+            return buffer[pos] == '-';
+        }
+        if (previousEnd != null) {
+            // current window start position in previous window
+            final int[] prev = previousEnd.getBuffer();
+            pos = mark.getIndex() - mark.getPointer() - previousEnd.getIndex() + previousEnd.getPointer() - 1;
+            if (pos < prev.length) {
+                while (pos >= 0 && prev[pos] == ' ') {
+                    pos--;
+                }
+                if (pos >= 0) {
+                    return prev[pos] == '-';
+                }
+            }
+        }
+        return mark.get_snippet().trim().charAt(0) == '-';
+    }
+
+    private void processCollection(final CollectionStartEvent event) {
+        final StructNode node = context.current;
+        if (event.isFlow()) {
+            // special case when object declared in FLOW style: {one: 1, two: 2} or [1, 2, 3]
+            // in this case assuming entire object as single value - mapping it to string
+            // (string is computed only when requested because it might be not needed at all)
+            final List<Event> events = collectFlow(event);
+            // lambda must not reference reader (parser state)
+            final YamlParserEngine yaml = engine;
+            node.setLazyValue(() -> yaml.serialize(yaml.compose(new EventsParser(events))));
+            // lists items might be considered as objects, which is not the case
+            node.setListItemWithProperty(false);
+        } else {
+            openCollection(event);
+        }
+    }
+
+    private void openCollection(final CollectionStartEvent event) {
+        if (frames.size() > options.getNestingDepthLimit()) {
+            throw new YAMLException("Exceeded max limit for nesting depth " + options.getNestingDepthLimit());
+        }
+        frames.push(new Frame(event instanceof MappingStartEvent));
+    }
+
+    /**
+     * Collects all flow collection events (as single document) to compose them later with snakeyaml into node
+     * (required for serialization). Aliases to anchors declared outside of collection are resolved.
+     * <p>
+     * Events are stored without marks: mark references parser reader buffer (window), which must not be kept
+     * with lazy value.
+     *
+     * @param start collection start event
+     * @return collection events
+     */
+    private List<Event> collectFlow(final CollectionStartEvent start) {
+        final List<Event> events = new ArrayList<>();
+        events.add(new StreamStartEvent(null, null));
+        events.add(new DocumentStartEvent(null, null, false, null, null));
+        events.add(withoutMarks(start));
+        final Set<String> localAnchors = new HashSet<>();
+        if (start.getAnchor() != null) {
+            localAnchors.add(start.getAnchor());
+        }
+        int depth = 1;
+        while (depth > 0) {
+            final Event event = readEvent();
+            if (event instanceof AliasEvent && !localAnchors.contains(((AliasEvent) event).getAnchor())) {
+                resolveAlias((AliasEvent) event);
+                continue;
+            }
+            if (event instanceof NodeEvent && ((NodeEvent) event).getAnchor() != null) {
+                localAnchors.add(((NodeEvent) event).getAnchor());
+            }
+            if (event instanceof CollectionStartEvent) {
+                depth++;
+                if (frames.size() + depth > options.getNestingDepthLimit()) {
+                    throw new YAMLException("Exceeded max limit for nesting depth " + options.getNestingDepthLimit());
+                }
+            } else if (event instanceof CollectionEndEvent) {
+                depth--;
+            }
+            events.add(withoutMarks(event));
+        }
+        events.add(new DocumentEndEvent(null, null, false));
+        events.add(new StreamEndEvent(null, null));
+        return events;
+    }
+
+    /**
+     * @param event flow collection event
+     * @return event copy without marks
+     */
+    private static Event withoutMarks(final Event event) {
+        final Event res;
+        if (event instanceof ScalarEvent) {
+            final ScalarEvent scalar = (ScalarEvent) event;
+            res = new ScalarEvent(scalar.getAnchor(), scalar.getTag(), scalar.getImplicit(), scalar.getValue(),
+                    null, null, scalar.getScalarStyle());
+        } else if (event instanceof MappingStartEvent) {
+            final MappingStartEvent mapping = (MappingStartEvent) event;
+            res = new MappingStartEvent(mapping.getAnchor(), mapping.getTag(), mapping.getImplicit(),
+                    null, null, mapping.getFlowStyle());
+        } else if (event instanceof SequenceStartEvent) {
+            final SequenceStartEvent sequence = (SequenceStartEvent) event;
+            res = new SequenceStartEvent(sequence.getAnchor(), sequence.getTag(), sequence.getImplicit(),
+                    null, null, sequence.getFlowStyle());
+        } else if (event instanceof MappingEndEvent) {
+            res = new MappingEndEvent(null, null);
+        } else if (event instanceof SequenceEndEvent) {
+            res = new SequenceEndEvent(null, null);
+        } else if (event instanceof AliasEvent) {
+            res = new AliasEvent(((AliasEvent) event).getAnchor(), null, null);
+        } else {
+            throw new IllegalStateException("Unexpected event inside flow collection: " + event);
+        }
+        return res;
+    }
+
+    private Event nextEvent() {
+        Event event = readEvent();
+        while (event instanceof AliasEvent) {
+            resolveAlias((AliasEvent) event);
+            event = readEvent();
+        }
+        return event;
+    }
+
+    private Event readEvent() {
+        if (!replay.isEmpty()) {
+            return track(replay.poll());
+        }
+        final Event event = parser.getEvent();
+        record(event);
+        return track(event);
+    }
+
+    private Event track(final Event event) {
+        previousEnd = currentEnd;
+        currentEnd = event.getEndMark();
+        return event;
+    }
+
+    private void resolveAlias(final AliasEvent alias) {
+        final String anchor = alias.getAnchor();
+        final List<Event> events = anchors.get(anchor);
+        if (events == null) {
+            for (Recording rec : recordings) {
+                if (rec.anchor.equals(anchor)) {
+                    throw new IllegalStateException("Recursive alias " + anchor + " is not supported"
+                            + alias.getStartMark());
+                }
+            }
+            throw new IllegalStateException("Found undefined alias " + anchor + alias.getStartMark());
+        }
+        if (events.size() > 1 && ++collectionAliases > options.getMaxAliasesForCollections()) {
+            throw new YAMLException("Number of aliases for non-scalar nodes exceeds the specified max="
+                    + options.getMaxAliasesForCollections());
+        }
+        // anchored node events would be processed as if they were declared instead of alias
+        for (int i = events.size() - 1; i >= 0; i--) {
+            replay.addFirst(events.get(i));
+        }
+    }
+
+    private void record(final Event event) {
+        for (int i = recordings.size() - 1; i >= 0; i--) {
+            final Recording rec = recordings.get(i);
+            rec.events.add(event);
+            if (event instanceof CollectionStartEvent) {
+                rec.depth++;
+            } else if (event instanceof CollectionEndEvent) {
+                rec.depth--;
+            }
+            if (rec.depth == 0) {
+                recordings.remove(i);
+                anchors.put(rec.anchor, rec.events);
+            }
+        }
+        if (event instanceof NodeEvent && !(event instanceof AliasEvent) && ((NodeEvent) event).getAnchor() != null) {
+            final Recording rec = new Recording(((NodeEvent) event).getAnchor());
+            rec.events.add(event);
+            if (event instanceof ScalarEvent) {
+                anchors.put(rec.anchor, rec.events);
+            } else {
+                rec.depth = 1;
+                recordings.add(rec);
+            }
+        }
+    }
+
+    /**
+     * Opened collection.
+     */
+    @SuppressWarnings("checkstyle:VisibilityModifier")
+    private static class Frame {
+        final boolean mapping;
+        // mapping key, waiting for value
+        ScalarEvent key;
+
+        Frame(final boolean mapping) {
+            this.mapping = mapping;
+        }
+    }
+
+    /**
+     * Anchored collection events.
+     */
+    @SuppressWarnings("checkstyle:VisibilityModifier")
+    private static class Recording {
+        final String anchor;
+        final List<Event> events = new ArrayList<>();
+        int depth;
+
+        Recording(final String anchor) {
+            this.anchor = anchor;
+        }
+    }
+
+    /**
+     * Snakeyaml parser over already collected events (used to compose flow collections).
+     */
+    private static class EventsParser implements Parser {
+        private final List<Event> events;
+        private int pos;
+
+        EventsParser(final List<Event> events) {
+            this.events = events;
+        }
+
+        @Override
+        public boolean checkEvent(final Event.ID choice) {
+            final Event event = peekEvent();
+            return event != null && event.is(choice);
+        }
+
+        @Override
+        public Event peekEvent() {
+            return pos < events.size() ? events.get(pos) : null;
+        }
+
+        @Override
+        public Event getEvent() {
+            final Event event = peekEvent();
+            pos++;
+            return event;
+        }
+    }
+
+    @SuppressWarnings("checkstyle:VisibilityModifier")
+    private static final class Context {
+        final KeysTable keys;
+        int lineNum;
+        final List<StructNode> rootNodes = new ArrayList<>();
+        StructNode current;
+
+        Context(final KeysTable keys) {
+            this.keys = keys;
+        }
+
+        public void property(final int padding, final String name, final String value) {
+            final StructNode root = YamlModelUtils.findNextLineRoot(padding, current);
+            final StructNode node = new StructNode(root, padding, lineNum);
+            if (name != null) {
+                node.setKey(keys.intern(name));
+            }
+            if (value != null) {
+                node.setValue(value);
+            }
+            current = node;
+            if (root == null) {
+                rootNodes.add(node);
+            }
+        }
+
+        public void listValue(final int padding, final String value) {
+            property(padding, null, value);
+            YamlModelUtils.listItem(current);
+        }
+
+        public void virtualListItemNode(final int padding) {
+            property(padding, null, null);
+            YamlModelUtils.virtualListItem(current);
+        }
+    }
+}
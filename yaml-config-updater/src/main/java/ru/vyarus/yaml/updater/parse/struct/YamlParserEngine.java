@@ -0,0 +1,117 @@
+package ru.vyarus.yaml.updater.parse.struct;
+
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.composer.Composer;
+import org.yaml.snakeyaml.emitter.Emitter;
+import org.yaml.snakeyaml.error.YAMLException;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.parser.Parser;
+import org.yaml.snakeyaml.parser.ParserImpl;
+import org.yaml.snakeyaml.reader.StreamReader;
+import org.yaml.snakeyaml.resolver.Resolver;
+import org.yaml.snakeyaml.serializer.NumberAnchorGenerator;
+import org.yaml.snakeyaml.serializer.Serializer;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+
+/**
+ * Snakeyaml components, required for structure parsing ({@link StructEventReader}). Loader options are created
+ * once, while dumper options and resolver (with its implicit resolvers table) are cached per thread
+ * (snakeyaml objects are not thread-safe), so the same engine instance could be used for any number of parsings
+ * in any threads (e.g. when many configs updated in one jvm). Parser, emitter and serializer are bound to exact
+ * source or target and so always created.
+ * <p>
+ * Provided loader options must not be modified after engine creation.
+ *
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+public class YamlParserEngine {
+
+    // do not keep too large buffers
+    private static final int MAX_CACHED_BUFFER = 64 * 1024;
+    private static final YamlParserEngine DEFAULT = new YamlParserEngine();
+
+    private final LoaderOptions loaderOptions;
+    private final ThreadLocal<DumperOptions> dumperOptions = ThreadLocal.withInitial(DumperOptions::new);
+    private final ThreadLocal<Resolver> resolver = ThreadLocal.withInitial(Resolver::new);
+    // buffer for flow values serialization
+    private final ThreadLocal<StringWriter> writer = ThreadLocal.withInitial(StringWriter::new);
+
+    /**
+     * Engine with default snakeyaml options.
+     */
+    public YamlParserEngine() {
+        this(new LoaderOptions());
+    }
+
+    /**
+     * @param loaderOptions preconfigured snakeyaml loader options (e.g. with custom limits)
+     */
+    public YamlParserEngine(final LoaderOptions loaderOptions) {
+        this.loaderOptions = loaderOptions;
+    }
+
+    /**
+     * @return shared engine with default snakeyaml options
+     */
+    public static YamlParserEngine getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @return snakeyaml loader options
+     */
+    public LoaderOptions getLoaderOptions() {
+        return loaderOptions;
+    }
+
+    /**
+     * @param reader yaml content reader
+     * @return snakeyaml events parser
+     */
+    public Parser createParser(final Reader reader) {
+        return new ParserImpl(new StreamReader(reader), loaderOptions);
+    }
+
+    /**
+     * @param events parser with single document events
+     * @return composed node
+     */
+    public Node compose(final Parser events) {
+        return new Composer(events, resolver.get(), loaderOptions).getSingleNode();
+    }
+
+    /**
+     * @param node node to serialize
+     * @return serialized node (without trailing new line)
+     */
+    public String serialize(final Node node) {
+        final StringWriter out = writer.get();
+        out.getBuffer().setLength(0);
+        final DumperOptions options = dumperOptions.get();
+        // generator counts anchors: reset to always start from id001 (as for new options)
+        options.setAnchorGenerator(new NumberAnchorGenerator(0));
+
+        // the code below is taken from Yaml#serialize(node, out) appeared only in recent snakeyaml versions
+        // (used like this for better compatibility with older snakeyaml versions (older dropwizard))
+        final Serializer serializer = new Serializer(new Emitter(out, options), resolver.get(), options, null);
+        try {
+            serializer.open();
+            serializer.serialize(node);
+            serializer.close();
+        } catch (IOException e) {
+            throw new YAMLException(e);
+        }
+
+        // trim cut's off trailing newline
+        final String res = out.toString().trim();
+        if (out.getBuffer().capacity() > MAX_CACHED_BUFFER) {
+            writer.remove();
+        }
+        return res;
+    }
+}
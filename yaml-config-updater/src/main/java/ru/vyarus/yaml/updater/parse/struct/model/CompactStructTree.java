@@ -0,0 +1,533 @@
+package ru.vyarus.yaml.updater.parse.struct.model;
+
+import ru.vyarus.yaml.updater.parse.common.model.ContentHash;
+import ru.vyarus.yaml.updater.parse.common.model.YamlLine;
+import ru.vyarus.yaml.updater.parse.common.model.YamlPath;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Supplier;
+
+/**
+ * Read-only structure tree with compact nodes storage: nodes are stored in pre-order (each subtree is a continuous
+ * range) in primitive arrays (padding, line number, parent, subtree end and flags) with key and value references.
+ * Structure tree is used only for validation and values comparison, so there is no need to hold complete node
+ * objects (with children lists and cached paths) for all tree lines.
+ * <p>
+ * Nodes are accessed through {@link StructNode} views, created on first access (one view per node, so views for
+ * not accessed nodes are never created). Views and tree are not modifiable: any modification method throws
+ * {@link UnsupportedOperationException}. Node path and children list are cached in view. Paths index (used for
+ * search by path, {@link #find(YamlPath)}) is stored in primitive arrays (path hashes and open addressing table
+ * with node indexes), so path objects are not created for indexing.
+ *
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public class CompactStructTree extends StructTree {
+
+    private static final byte LIST_ITEM = 1;
+    private static final byte LIST_ITEM_WITH_PROPERTY = 2;
+
+    private final int[] padding;
+    private final int[] lineNum;
+    // parent node index (-1 for root nodes)
+    private final int[] parent;
+    // subtree end (exclusive): index of the next node after node's subtree
+    private final int[] end;
+    // position in parent's children
+    private final int[] position;
+    private final byte[] flags;
+    private final String[] keys;
+    // value string or value supplier (lazy value, computed on first access)
+    private final Object[] values;
+    private final List<StructNode> roots;
+    // true if some property name could not be parsed back from string path (contains separator or '[')
+    private final boolean ambiguousKeys;
+    // subtree hashes (computed for all nodes on first request)
+    private long[] hashes;
+    // node path hashes (the same as YamlPath hash, computed on first search)
+    private int[] pathHashes;
+    // paths index: open addressing table with node indexes + 1 (0 for empty slot), built on first search
+    private int[] pathIndex;
+    // node views (created on first access)
+    private Node[] views;
+
+    /**
+     * @param tree structure tree to copy
+     */
+    public CompactStructTree(final StructTree tree) {
+        super(Collections.emptyList(), tree.getLinesCnt());
+        final int size = count(tree.getChildren());
+        padding = new int[size];
+        lineNum = new int[size];
+        parent = new int[size];
+        end = new int[size];
+        position = new int[size];
+        flags = new byte[size];
+        keys = new String[size];
+        values = new Object[size];
+        store(tree.getChildren(), -1, 0);
+        roots = new Children(-1);
+        ambiguousKeys = Arrays.stream(keys).anyMatch(CompactStructTree::isAmbiguous);
+    }
+
+    /**
+     * Compact tree could be used instead of any structure tree, which is not modified anymore.
+     *
+     * @param tree structure tree
+     * @return compact tree (the same tree if already compact)
+     */
+    public static CompactStructTree of(final StructTree tree) {
+        return tree instanceof CompactStructTree ? (CompactStructTree) tree : new CompactStructTree(tree);
+    }
+
+    /**
+     * @return overall nodes count
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return root nodes views (not modifiable)
+     */
+    @Override
+    public List<StructNode> getChildren() {
+        // roots are null only inside super constructor
+        return roots == null ? super.getChildren() : roots;
+    }
+
+    @Override
+    public StructNode find(final String path) {
+        return find(-1, path);
+    }
+
+    @Override
+    public StructNode find(final YamlPath path) {
+        return find(-1, path);
+    }
+
+    @Override
+    public void add(final StructNode node) {
+        throw new UnsupportedOperationException("Compact tree is read-only");
+    }
+
+    private StructNode node(final int index) {
+        if (index < 0) {
+            return null;
+        }
+        if (views == null) {
+            views = new Node[size()];
+        }
+        Node res = views[index];
+        if (res == null) {
+            res = new Node(this, index);
+            views[index] = res;
+        }
+        return res;
+    }
+
+    @SuppressWarnings("unchecked")
+    private String value(final int index) {
+        final Object res = values[index];
+        if (res instanceof Supplier) {
+            final String value = ((Supplier<String>) res).get();
+            values[index] = value;
+            return value;
+        }
+        return (String) res;
+    }
+
+    private boolean isProperty(final int index) {
+        return keys[index] != null;
+    }
+
+    private boolean isListItem(final int index) {
+        return (flags[index] & LIST_ITEM) != 0;
+    }
+
+    private int firstChild(final int index) {
+        return index + 1;
+    }
+
+    private int childrenEnd(final int index) {
+        return index < 0 ? keys.length : end[index];
+    }
+
+    private int depth(final int index) {
+        int res = 0;
+        int cur = index;
+        while (cur >= 0) {
+            res++;
+            cur = parent[cur];
+        }
+        return res;
+    }
+
+    private YamlPath path(final int index) {
+        return index < 0 ? YamlPath.EMPTY : node(index).getPath();
+    }
+
+    /**
+     * Same as {@link StructNode#getSubtreeHash()}, but computed for all nodes at once (from the end: children
+     * are always stored after parent).
+     *
+     * @param index node index
+     * @return subtree hash
+     */
+    private long hash(final int index) {
+        if (hashes == null) {
+            final long[] res = new long[size()];
+            for (int i = res.length - 1; i >= 0; i--) {
+                long hash = StructNode.contentHash(keys[i], isListItem(i), value(i));
+                for (int child = firstChild(i); child < end[i]; child = end[child]) {
+                    hash = ContentHash.add(hash, res[child]);
+                }
+                res[i] = hash;
+            }
+            hashes = res;
+        }
+        return hashes[index];
+    }
+
+    private StructNode find(final int from, final String path) {
+        if (path == null) {
+            return null;
+        }
+        StructNode res = find(from, YamlPath.parse(path));
+        if (res == null && ambiguousKeys) {
+            // property name could contain separator or list index-like suffix: comparing with string paths
+            // (in tree order, so first node wins as for other trees)
+            final int cut = depth(from);
+            for (int i = firstChild(from); i < childrenEnd(from); i++) {
+                if (path(i).subPath(cut).toString().equals(path)) {
+                    res = node(i);
+                    break;
+                }
+            }
+        }
+        return res;
+    }
+
+    private StructNode find(final int from, final YamlPath path) {
+        if (path.isEmpty()) {
+            return null;
+        }
+        final int res = lookup(path(from).resolve(path));
+        if (res < 0) {
+            return null;
+        }
+        // for duplicate paths, first node could be outside of search root subtree
+        return res > from && res < childrenEnd(from) ? node(res) : node(find(from, path, 0));
+    }
+
+    /**
+     * Search node by paths index (first node in tree order for duplicate paths).
+     *
+     * @param path absolute path
+     * @return node index or -1
+     */
+    private int lookup(final YamlPath path) {
+        if (pathIndex == null) {
+            buildPathIndex();
+        }
+        final int mask = pathIndex.length - 1;
+        final int hash = path.hashCode();
+        for (int slot = spread(hash) & mask; pathIndex[slot] != 0; slot = (slot + 1) & mask) {
+            final int res = pathIndex[slot] - 1;
+            if (pathHashes[res] == hash && isPath(res, path)) {
+                return res;
+            }
+        }
+        return -1;
+    }
+
+    private void buildPathIndex() {
+        final int[] hashes = new int[size()];
+        // at least twice bigger than nodes count (power of 2)
+        final int[] table = new int[Integer.highestOneBit(Math.max(1, size())) << 2];
+        final int mask = table.length - 1;
+        for (int i = 0; i < size(); i++) {
+            // parent is always stored before child
+            final int hash = parent[i] < 0 ? 0 : hashes[parent[i]];
+            hashes[i] = isProperty(i) ? YamlPath.hash(hash, keys[i], 0)
+                    : isListItem(i) ? YamlPath.hash(hash, null, position[i]) : hash;
+            // nodes added in tree order, so the first node would be found first for duplicate paths
+            int slot = spread(hashes[i]) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+        pathHashes = hashes;
+        pathIndex = table;
+    }
+
+    /**
+     * Compares node path with provided path without node path creation.
+     *
+     * @param index node index
+     * @param path  absolute path
+     * @return true if node path is the same
+     */
+    private boolean isPath(final int index, final YamlPath path) {
+        int segment = path.size() - 1;
+        for (int i = index; i >= 0; i = parent[i]) {
+            if (isProperty(i) || isListItem(i)) {
+                if (segment < 0 || !(isProperty(i)
+                        ? keys[i].equals(path.getKey(segment))
+                        : path.isListItem(segment) && path.getListPosition(segment) == position[i])) {
+                    return false;
+                }
+                segment--;
+            }
+        }
+        return segment < 0;
+    }
+
+    /**
+     * Depth first search: first matched node in tree order is selected (the same as paths index, for duplicate
+     * names).
+     *
+     * @param from    search root
+     * @param path    path
+     * @param segment current path segment
+     * @return found node index or -1
+     */
+    private int find(final int from, final YamlPath path, final int segment) {
+        final boolean item = path.isListItem(segment);
+        final String key = path.getKey(segment);
+        int pos = 0;
+        for (int i = firstChild(from); i < childrenEnd(from); i = end[i]) {
+            final boolean matched = item
+                    ? !isProperty(i) && isListItem(i) && pos == path.getListPosition(segment)
+                    : key.equals(keys[i]);
+            if (matched) {
+                final int res = segment == path.size() - 1 ? i : find(i, path, segment + 1);
+                if (res >= 0) {
+                    return res;
+                }
+            }
+            pos++;
+        }
+        return -1;
+    }
+
+    private static int spread(final int hash) {
+        return hash ^ (hash >>> Short.SIZE);
+    }
+
+    private static boolean isAmbiguous(final String key) {
+        // empty name is not rendered in string path
+        return key != null && (key.isEmpty() || key.indexOf(YamlLine.PATH_SEPARATOR) >= 0 || key.indexOf('[') >= 0);
+    }
+
+    private static int count(final List<StructNode> nodes) {
+        int res = nodes.size();
+        for (StructNode node : nodes) {
+            res += count(node.getChildren());
+        }
+        return res;
+    }
+
+    private int store(final List<StructNode> nodes, final int parentIndex, final int from) {
+        int index = from;
+        for (int i = 0; i < nodes.size(); i++) {
+            final StructNode node = nodes.get(i);
+            final int current = index++;
+            position[current] = i;
+            padding[current] = node.getPadding();
+            lineNum[current] = node.getLineNum();
+            parent[current] = parentIndex;
+            flags[current] = (byte) ((node.isListItem() ? LIST_ITEM : 0)
+                    | (node.isListItemWithProperty() ? LIST_ITEM_WITH_PROPERTY : 0));
+            keys[current] = node.getKey();
+            final Supplier<String> lazy = node.getLazyValue();
+            values[current] = lazy != null ? lazy : node.getValue();
+            index = store(node.getChildren(), current, index);
+            end[current] = index;
+        }
+        return index;
+    }
+
+    /**
+     * Children views list. Children indexes are resolved on list creation.
+     */
+    private final class Children extends AbstractList<StructNode> implements RandomAccess {
+        private final int[] indexes;
+
+        Children(final int index) {
+            int count = 0;
+            for (int i = firstChild(index); i < childrenEnd(index); i = end[i]) {
+                count++;
+            }
+            indexes = new int[count];
+            int pos = 0;
+            for (int i = firstChild(index); i < childrenEnd(index); i = end[i]) {
+                indexes[pos++] = i;
+            }
+        }
+
+        @Override
+        public StructNode get(final int index) {
+            return node(indexes[index]);
+        }
+
+        @Override
+        public int size() {
+            return indexes.length;
+        }
+
+        @Override
+        public int indexOf(final Object o) {
+            if (o instanceof Node && ((Node) o).tree == CompactStructTree.this) {
+                final int pos = Arrays.binarySearch(indexes, ((Node) o).index);
+                return pos < 0 ? -1 : pos;
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Node view.
+     */
+    @SuppressWarnings("PMD.TooManyMethods")
+    private static final class Node extends StructNode {
+        private final CompactStructTree tree;
+        private final int index;
+        private YamlPath nodePath;
+        private Children childList;
+
+        Node(final CompactStructTree tree, final int index) {
+            super(null, tree.padding[index], tree.lineNum[index]);
+            this.tree = tree;
+            this.index = index;
+            super.setKey(tree.keys[index]);
+            super.setListItem(tree.isListItem(index));
+            super.setListItemWithProperty((tree.flags[index] & LIST_ITEM_WITH_PROPERTY) != 0);
+        }
+
+        @Override
+        public StructNode getRoot() {
+            return tree.node(tree.parent[index]);
+        }
+
+        @Override
+        public List<StructNode> getChildren() {
+            if (childList == null) {
+                childList = tree.new Children(index);
+            }
+            return childList;
+        }
+
+        @Override
+        public boolean hasChildren() {
+            return tree.end[index] > index + 1;
+        }
+
+        @Override
+        public String getValue() {
+            return tree.value(index);
+        }
+
+        @Override
+        public boolean isLazyValue() {
+            return tree.values[index] instanceof Supplier;
+        }
+
+        @Override
+        public int getPosition() {
+            return tree.position[index];
+        }
+
+        @Override
+        public YamlPath getPath() {
+            if (nodePath == null) {
+                final YamlPath res = tree.path(tree.parent[index]);
+                nodePath = isProperty() ? res.child(getKey())
+                        : isListItem() ? res.item(getPosition()) : res;
+            }
+            return nodePath;
+        }
+
+        @Override
+        public long getSubtreeHash() {
+            return tree.hash(index);
+        }
+
+        @Override
+        public String getYamlPathElement() {
+            if (isProperty()) {
+                return getKey();
+            }
+            if (isListItem()) {
+                final YamlPath path = getPath();
+                return "[" + path.getListPosition(path.size() - 1) + "]";
+            }
+            return "";
+        }
+
+        @Override
+        public StructNode find(final String path) {
+            return tree.find(index, path);
+        }
+
+        @Override
+        public StructNode find(final YamlPath path) {
+            return tree.find(index, path);
+        }
+
+        @Override
+        public void setKey(final String key) {
+            readOnly();
+        }
+
+        @Override
+        public void setListItem(final boolean listItem) {
+            readOnly();
+        }
+
+        @Override
+        public void setListItemWithProperty(final boolean listItemWithProperty) {
+            readOnly();
+        }
+
+        @Override
+        public void setPadding(final int padding) {
+            readOnly();
+        }
+
+        @Override
+        public void shiftLines(final int shift) {
+            readOnly();
+        }
+
+        @Override
+        public void setRoot(final StructNode root) {
+            readOnly();
+        }
+
+        @Override
+        public void setValue(final String value) {
+            readOnly();
+        }
+
+        @Override
+        public void setLazyValue(final Supplier<String> value) {
+            readOnly();
+        }
+
+        @Override
+        public void add(final StructNode node) {
+            readOnly();
+        }
+
+        private void readOnly() {
+            throw new UnsupportedOperationException("Compact tree node is read-only: " + getYamlPath());
+        }
+    }
+}
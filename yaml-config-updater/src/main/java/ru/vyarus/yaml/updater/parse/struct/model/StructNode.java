@@ -1,7 +1,10 @@
 package ru.vyarus.yaml.updater.parse.struct.model;
 
+import ru.vyarus.yaml.updater.parse.common.model.ContentHash;
 import ru.vyarus.yaml.updater.parse.common.model.YamlLine;
 
+import java.util.function.Supplier;
+
 /**
  * Structure build by snakeyaml-based parser. Represents one or multiple lines in yaml file (multiple lines only in
  * case of multiline value). Usually represent some property, except list values where pure scalar might appear.
@@ -15,17 +18,62 @@ import ru.vyarus.yaml.updater.parse.common.model.YamlLine;
  */
 public class StructNode extends YamlLine<StructNode> {
     private String value;
+    // value computed on first access (flow collections serialization)
+    private Supplier<String> lazyValue;
 
     public StructNode(final StructNode root, final int padding, final int lineNum) {
         super(root, padding, lineNum);
     }
 
     public String getValue() {
+        if (lazyValue != null) {
+            value = lazyValue.get();
+            lazyValue = null;
+        }
         return value;
     }
 
     public void setValue(final String value) {
         this.value = value;
+        this.lazyValue = null;
+        contentChanged();
+    }
+
+    /**
+     * Value would be computed only when requested (and only once). Used for values which are expensive to compute,
+     * but might be not required at all (e.g. flow collections serialization).
+     *
+     * @param value value provider
+     */
+    public void setLazyValue(final Supplier<String> value) {
+        this.lazyValue = value;
+        this.value = null;
+        contentChanged();
+    }
+
+    /**
+     * @return true if value is not computed yet
+     */
+    public boolean isLazyValue() {
+        return lazyValue != null;
+    }
+
+    /**
+     * @return value provider or null if value is computed or not lazy
+     */
+    Supplier<String> getLazyValue() {
+        return lazyValue;
+    }
+
+    /**
+     * Hash includes only data, important for values comparison (property name, list item marker and value):
+     * formatting (paddings, list style) is ignored. Lazy value is computed.
+     *
+     * @return node content hash
+     */
+    @Override
+    protected long computeContentHash() {
+        return contentHash(getKey(), isListItem(), getValue());
     }
 
     @Override
@@ -34,9 +82,21 @@ public class StructNode extends YamlLine<StructNode> {
         return getValue();
     }
 
+    /**
+     * @param key      property name
+     * @param listItem list item marker
+     * @param value    value
+     * @return node content hash (see {@link #computeContentHash()})
+     */
+    static long contentHash(final String key, final boolean listItem, final String value) {
+        long res = ContentHash.add(ContentHash.EMPTY, key);
+        res = ContentHash.add(res, listItem);
+        return ContentHash.add(res, value);
+    }
+
     @Override
     public String toString() {
-        final String value = this.value == null ? "" : this.value;
+        final String value = getValue() == null ? "" : getValue();
         final String res;
         if (isListItem()) {
             res = "- " + (isListItemWithProperty()
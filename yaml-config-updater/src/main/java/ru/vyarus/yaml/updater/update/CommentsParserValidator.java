@@ -77,7 +77,12 @@ public final class CommentsParserValidator {
                 }
 
                 // store correctly parsed value (without comments) for precise list items matching
-                line.setParsedValue(match.getValue());
+                if (match.isLazyValue()) {
+                    // avoid computing value if it would not be used
+                    line.setLazyParsedValue(match::getValue);
+                } else {
+                    line.setParsedValue(match.getValue());
+                }
             }
 
             // validate subtree (even for non properties because structures must be equal)
@@ -0,0 +1,338 @@
+package ru.vyarus.yaml.updater.update;
+
+import ru.vyarus.yaml.updater.parse.comments.model.CmtNode;
+import ru.vyarus.yaml.updater.parse.comments.model.CmtTree;
+import ru.vyarus.yaml.updater.parse.common.model.ContentHash;
+import ru.vyarus.yaml.updater.parse.common.model.KeysTable;
+import ru.vyarus.yaml.updater.parse.common.model.TreeNode;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recorded merge of update file into current file (see {@link TreeMerger#mergeWithPlan(CmtTree, CmtTree,
+ * java.util.concurrent.ForkJoinPool, int)}), which could be applied to other current files with the same
+ * structure without merge (no nodes matching). Useful when the same update file is applied to many configs
+ * differing only in values.
+ * <p>
+ * For each merged level, plan contains: nodes padding (current nodes shifted to it), comment replacements and
+ * key style changes for matched nodes, inserted nodes from update file (with all sub nodes) and resulting nodes
+ * order (inserted nodes anchored to current nodes positions).
+ * <p>
+ * Plan is applicable only for current files with the same structure hash ({@link #structureHash(TreeNode)}):
+ * it includes property names and list items, but not values (and not paddings as shift is computed on
+ * application). The exception is object list items: they are matched by values, so items content is counted.
+ * <p>
+ * Plan is serializable, so it could be stored for later use (plan does not depend on trees it was created from).
+ *
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+public final class MergePlan implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long structureHash;
+    private final long updateHash;
+    // null if nothing to merge (empty update file)
+    private final Level root;
+
+    MergePlan(final long structureHash, final long updateHash, final Level root) {
+        this.structureHash = structureHash;
+        this.updateHash = updateHash;
+        this.root = root;
+    }
+
+    /**
+     * @return structure hash of current file, used for plan creation
+     */
+    public long getStructureHash() {
+        return structureHash;
+    }
+
+    /**
+     * @return hash of update file, used for plan creation (see {@link #updateHash(TreeNode)})
+     */
+    public long getUpdateHash() {
+        return updateHash;
+    }
+
+    /**
+     * Merge current file with the update file, used for plan creation.
+     *
+     * @param current current file (must have the same structure hash)
+     * @throws IllegalArgumentException if file structure is different
+     */
+    public void apply(final CmtTree current) {
+        apply(current, new KeysTable());
+    }
+
+    /**
+     * @param current current file (must have the same structure hash)
+     * @param keys    property names symbol table (for inserted nodes)
+     * @throws IllegalArgumentException if file structure is different
+     * @see #apply(CmtTree)
+     */
+    public void apply(final CmtTree current, final KeysTable keys) {
+        final long hash = structureHash(current);
+        if (hash != structureHash) {
+            throw new IllegalArgumentException(String.format(
+                    "Merge plan is not applicable: current file structure hash %s differs from planned %s",
+                    hash, structureHash));
+        }
+        if (root != null) {
+            root.apply(current, keys);
+        }
+        TreeMerger.mergeTrailingComments(current);
+    }
+
+    /**
+     * Current file structure hash: property names, list items and comment-only nodes (not values). Object list
+     * items content is counted completely (including values) because items are matched by values.
+     *
+     * @param tree current file tree
+     * @return current file structure hash (plan key)
+     */
+    public static long structureHash(final TreeNode<CmtNode> tree) {
+        long res = ContentHash.add(ContentHash.EMPTY, tree.getChildren().size());
+        for (CmtNode node : tree.getChildren()) {
+            res = ContentHash.add(res, structureHash(node));
+        }
+        return res;
+    }
+
+    /**
+     * Plan contains update file nodes, so plan could be applied only for the same update file.
+     *
+     * @param tree update file tree
+     * @return update file content hash
+     */
+    public static long updateHash(final TreeNode<CmtNode> tree) {
+        long res = ContentHash.add(ContentHash.EMPTY, tree.getChildren().size());
+        for (CmtNode node : tree.getChildren()) {
+            res = ContentHash.add(res, node.getSubtreeHash());
+        }
+        return res;
+    }
+
+    private static long structureHash(final CmtNode node) {
+        // object list items are matched by values
+        if (node.isObjectListItem()) {
+            return ContentHash.add(ContentHash.add(ContentHash.EMPTY, true), node.getSubtreeHash());
+        }
+        long res = ContentHash.add(ContentHash.EMPTY, node.getKey());
+        res = ContentHash.add(res, node.isListItem());
+        res = ContentHash.add(res, node.isCommentOnly());
+        res = ContentHash.add(res, node.getChildren().size());
+        for (CmtNode child : node.getChildren()) {
+            res = ContentHash.add(res, structureHash(child));
+        }
+        return res;
+    }
+
+    /**
+     * Records merged level (before level nodes replacement).
+     *
+     * @param node    merged node
+     * @param padding level nodes padding
+     * @param updated resulting level nodes
+     * @param currs   matched current nodes
+     * @param news    matched new nodes
+     * @param levels  matched nodes merge
+     * @return merged level
+     */
+    static Level mapLevel(final TreeNode<CmtNode> node,
+                          final int padding,
+                          final List<CmtNode> updated,
+                          final List<CmtNode> currs,
+                          final List<CmtNode> news,
+                          final List<Level> levels) {
+        final Map<CmtNode, Integer> positions = positions(node);
+        final Change[] changes = new Change[currs.size()];
+        for (int i = 0; i < changes.length; i++) {
+            final CmtNode newnode = news.get(i);
+            changes[i] = new Change(positions.get(currs.get(i)), newnode.getSourceKey(),
+                    newnode.hasComment() ? newnode.getTopComment().toArray(new String[0]) : null, levels.get(i));
+        }
+        final int[] order = new int[updated.size()];
+        final List<Template> inserted = new ArrayList<>();
+        for (int i = 0; i < order.length; i++) {
+            final CmtNode child = updated.get(i);
+            final Integer pos = positions.get(child);
+            if (pos != null) {
+                order[i] = pos;
+            } else {
+                inserted.add(new Template(child));
+                order[i] = -inserted.size();
+            }
+        }
+        return new Level(padding, order, inserted.toArray(new Template[0]), false, changes);
+    }
+
+    /**
+     * Records merged list.
+     *
+     * @param list      merged list node
+     * @param padding   list items padding
+     * @param emptyDash target object items style
+     * @param items     matched current items
+     * @param levels    matched items merge
+     * @return merged list
+     */
+    static Level listLevel(final CmtNode list,
+                           final int padding,
+                           final boolean emptyDash,
+                           final List<CmtNode> items,
+                           final List<Level> levels) {
+        final Map<CmtNode, Integer> positions = positions(list);
+        final Change[] changes = new Change[items.size()];
+        for (int i = 0; i < changes.length; i++) {
+            changes[i] = new Change(positions.get(items.get(i)), null, null, levels.get(i));
+        }
+        return new Level(padding, null, null, emptyDash, changes);
+    }
+
+    private static Map<CmtNode, Integer> positions(final TreeNode<CmtNode> node) {
+        final Map<CmtNode, Integer> res = new IdentityHashMap<>();
+        for (CmtNode child : node.getChildren()) {
+            res.put(child, res.size());
+        }
+        return res;
+    }
+
+    /**
+     * Merged tree level (properties or list items).
+     */
+    static final class Level implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        // current nodes shifted to this padding
+        private final int padding;
+        // resulting nodes order: current node position or -(inserted node position + 1); null for list
+        private final int[] order;
+        private final Template[] inserted;
+        // object list items style
+        private final boolean emptyDash;
+        private final Change[] changes;
+
+        Level(final int padding,
+              final int[] order,
+              final Template[] inserted,
+              final boolean emptyDash,
+              final Change[] changes) {
+            this.padding = padding;
+            this.order = order;
+            this.inserted = inserted;
+            this.emptyDash = emptyDash;
+            this.changes = changes;
+        }
+
+        void apply(final TreeNode<CmtNode> node, final KeysTable keys) {
+            final List<CmtNode> nodes = new ArrayList<>(node.getChildren());
+            for (CmtNode child : nodes) {
+                child.shift(padding - child.getPadding());
+            }
+            for (Change change : changes) {
+                change.apply(nodes.get(change.index), keys);
+            }
+            if (order == null) {
+                TreeMerger.updateListStructure((CmtNode) node, emptyDash);
+            } else {
+                final List<CmtNode> updated = new ArrayList<>(order.length);
+                for (int pos : order) {
+                    updated.add(pos >= 0 ? nodes.get(pos) : inserted[-pos - 1].create(keys));
+                }
+                node.getChildren().clear();
+                node.addAll(updated);
+            }
+        }
+    }
+
+    /**
+     * Matched current node (or list item) changes.
+     */
+    static final class Change implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int index;
+        // null for list items
+        private final String sourceKey;
+        // null if comment is not replaced
+        private final String[] comment;
+        // null if nothing to merge
+        private final Level level;
+
+        Change(final int index, final String sourceKey, final String[] comment, final Level level) {
+            this.index = index;
+            this.sourceKey = sourceKey;
+            this.comment = comment;
+            this.level = level;
+        }
+
+        void apply(final CmtNode node, final KeysTable keys) {
+            if (comment != null) {
+                node.setTopComment(new ArrayList<>(Arrays.asList(comment)));
+            }
+            if (sourceKey != null) {
+                node.setSourceKey(keys.intern(sourceKey));
+            }
+            if (level != null) {
+                level.apply(node, keys);
+            }
+        }
+    }
+
+    /**
+     * Inserted node copy (with sub nodes).
+     */
+    static final class Template implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final int padding;
+        private final int lineNum;
+        private final String sourceKey;
+        private final boolean listItem;
+        private final boolean listItemWithProperty;
+        private final boolean addedNode;
+        private final String[] value;
+        private final String[] comment;
+        private final String parsedValue;
+        private final Template[] children;
+
+        Template(final CmtNode node) {
+            padding = node.getPadding();
+            lineNum = node.getLineNum();
+            sourceKey = node.getSourceKey();
+            listItem = node.isListItem();
+            listItemWithProperty = node.isListItemWithProperty();
+            addedNode = node.isAddedNode();
+            value = node.getValue().toArray(new String[0]);
+            comment = node.getTopComment().toArray(new String[0]);
+            parsedValue = node.getParsedValue();
+            children = new Template[node.getChildren().size()];
+            for (int i = 0; i < children.length; i++) {
+                children[i] = new Template(node.getChildren().get(i));
+            }
+        }
+
+        CmtNode create(final KeysTable keys) {
+            final CmtNode node = new CmtNode(null, padding, lineNum);
+            node.setKey(sourceKey, keys);
+            node.setListItem(listItem);
+            node.setListItemWithProperty(listItemWithProperty);
+            node.setValue(new ArrayList<>(Arrays.asList(value)));
+            node.setTopComment(new ArrayList<>(Arrays.asList(comment)));
+            node.setParsedValue(parsedValue);
+            node.setAddedNode(addedNode);
+            final List<CmtNode> nodes = new ArrayList<>(children.length);
+            for (Template child : children) {
+                nodes.add(child.create(keys));
+            }
+            node.addAll(nodes);
+            return node;
+        }
+    }
+}
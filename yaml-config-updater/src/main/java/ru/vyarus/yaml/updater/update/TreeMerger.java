@@ -4,12 +4,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.vyarus.yaml.updater.parse.comments.model.CmtNode;
 import ru.vyarus.yaml.updater.parse.comments.model.CmtTree;
-import ru.vyarus.yaml.updater.parse.common.TreeStringUtils;
 import ru.vyarus.yaml.updater.parse.common.model.TreeNode;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Merges commented models. Rules:
@@ -45,10 +48,51 @@ public final class TreeMerger {
      * @param from new file
      */
     public static void merge(final CmtTree node, final CmtTree from) {
-        mergeLevel(node, from);
+        merge(node, from, null, 0);
+    }
+
+    /**
+     * Merge commented models in parallel. Once nodes of the same level are paired, matched subtrees (and matched
+     * list items) are merged independently: large subtrees are merged as separate fork join tasks. Tasks are
+     * joined in tree order before level nodes reordering, so the result is the same as for sequential merge.
+     *
+     * @param node      old file
+     * @param from      new file
+     * @param pool      pool to merge subtrees with (null for sequential merge)
+     * @param threshold minimal subtree size (lines count in both files) to merge it in parallel
+     */
+    public static void merge(final CmtTree node, final CmtTree from, final ForkJoinPool pool, final int threshold) {
+        merge(node, from, pool, threshold, false);
+    }
+
+    /**
+     * Merge commented models, recording merge into plan, which could be applied to other current files with the
+     * same structure (see {@link MergePlan}). Plan must not depend on current file values, so identical subtrees
+     * are merged (not skipped as in usual merge).
+     *
+     * @param node      old file
+     * @param from      new file
+     * @param pool      pool to merge subtrees with (null for sequential merge)
+     * @param threshold minimal subtree size (lines count in both files) to merge it in parallel
+     * @return merge plan
+     */
+    public static MergePlan mergeWithPlan(final CmtTree node,
+                                          final CmtTree from,
+                                          final ForkJoinPool pool,
+                                          final int threshold) {
+        // must be computed before merge (trees modified)
+        final long structureHash = MergePlan.structureHash(node);
+        final long updateHash = MergePlan.updateHash(from);
+        return new MergePlan(structureHash, updateHash, merge(node, from, pool, threshold, true));
+    }
 
-        // if both files contain trailing comment, they both would merge
-        // (trailing comments impossible on deeper levels)
+    /**
+     * If both files contain trailing comment, they both would merge (trailing comments impossible on deeper
+     * levels): only new comment must remain.
+     *
+     * @param node merged file
+     */
+    static void mergeTrailingComments(final CmtTree node) {
         int trailing = 0;
         for (CmtNode child : node.getChildren()) {
             if (child.isCommentOnly()) {
@@ -63,10 +107,32 @@ public final class TreeMerger {
         }
     }
 
-    private static void mergeLevel(final TreeNode<CmtNode> node, final TreeNode<CmtNode> from) {
-        // nothing to sync case (current children subtree remains) and special logic for list values
-        if (!from.hasChildren() || processList(node, from)) {
-            return;
+    private static MergePlan.Level merge(final CmtTree node,
+                                         final CmtTree from,
+                                         final ForkJoinPool pool,
+                                         final int threshold,
+                                         final boolean record) {
+        final MergePlan.Level res;
+        if (pool == null || threshold <= 0) {
+            res = mergeLevel(node, from, 0, record);
+        } else {
+            res = pool.invoke(ForkJoinTask.adapt(() -> mergeLevel(node, from, threshold, record)));
+        }
+        mergeTrailingComments(node);
+        return res;
+    }
+
+    private static MergePlan.Level mergeLevel(final TreeNode<CmtNode> node,
+                                              final TreeNode<CmtNode> from,
+                                              final int threshold,
+                                              final boolean record) {
+        // nothing to sync case (current children subtree remains)
+        if (!from.hasChildren()) {
+            return null;
+        }
+        // special logic for list values
+        if (node.hasListValue()) {
+            return processList(node, from, threshold, record);
         }
 
         // updating file structure based on updating file nodes, replacing values present in current file
@@ -74,112 +140,229 @@ public final class TreeMerger {
 
         final Map<String, CmtNode> newProps = from.getRootProperties();
 
-        final List<CmtNode> updated = new ArrayList<>(from.getChildren());
+        final List<CmtNode> newNodes = from.getChildren();
         // mark all nodes as added by default (existing nodes would be replaced)
-        updated.forEach(cmtNode -> cmtNode.setAddedNode(true));
+        newNodes.forEach(cmtNode -> cmtNode.setAddedNode(true));
+        // new nodes order (existing nodes would be placed instead of matched new nodes)
+        final CmtNode[] slots = newNodes.toArray(new CmtNode[0]);
+        // current nodes not found in new tree, grouped by insertion place: inserted[i] must go before slots[i]
+        // (the last element for nodes going after the last new node)
+        final List<List<CmtNode>> inserted = new ArrayList<>(Collections.nCopies(slots.length + 1, null));
 
         // current file paddings must be unified with updating file or the resulting file become invalid
-        final int padding = from.getChildren().get(0).getPadding();
-        // previous node index
-        int prevNodeIdx = -1;
-
-        for (int i = 0; i < node.getChildren().size(); i++) {
-            final CmtNode curr = node.getChildren().get(i);
-
+        final int padding = slots[0].getPadding();
+        // matched nodes (current and new), merged after level processing
+        final List<CmtNode> currs = new ArrayList<>();
+        final List<CmtNode> news = new ArrayList<>();
+        // previous node slot
+        int prevSlot = -1;
+
+        for (CmtNode curr : node.getChildren()) {
             // update old node's padding
-            shiftNode(curr, padding - curr.getPadding());
+            curr.shift(padding - curr.getPadding());
 
             final String key = curr.getKey();
-            if (curr.isProperty() && newProps.containsKey(key)) {
-                // replace new node with old node
-                final int idx = updated.indexOf(newProps.get(key));
-                final CmtNode newnode = updated.remove(idx);
-                updated.add(idx, curr);
+            final CmtNode newnode = curr.isProperty() ? newProps.get(key) : null;
+            if (newnode != null) {
+                // replace new node with old node (position is not searched: cached in children list)
+                final int idx = newNodes.indexOf(newnode);
+                slots[idx] = curr;
+                prevSlot = idx;
+
+                // identical subtrees (usually, most of the config): nothing to merge
+                if (!record && curr.getSubtreeHash() == newnode.getSubtreeHash() && !hasObjectListItems(curr)) {
+                    continue;
+                }
 
                 // copy comment from new node (it might be updated and contain more actual instructions)
                 if (newnode.hasComment()) {
-                    curr.getTopComment().clear();
-                    curr.getTopComment().addAll(newnode.getTopComment());
+                    curr.setTopComment(new ArrayList<>(newnode.getTopComment()));
                 }
 
                 // property style could change (quoted to unquoted or the opposite)
                 curr.setSourceKey(newnode.getSourceKey());
 
-                // sync entire tree
-                mergeLevel(curr, newnode);
-
-                prevNodeIdx = idx;
+                // sync entire tree (later)
+                currs.add(curr);
+                news.add(newnode);
                 continue;
             }
 
             // current node not found in new tree: trying to find a good place for insertion using previous context
+            // (first node will also go first; insert it after old previous element (in the new list);
+            // if multiple properties from current file absent in new file, they must go in the same order)
+            List<CmtNode> place = inserted.get(prevSlot + 1);
+            if (place == null) {
+                place = new ArrayList<>();
+                inserted.set(prevSlot + 1, place);
+            }
+            place.add(curr);
+        }
 
-            if (prevNodeIdx < 0) {
-                // first node will also go first
-                updated.add(0, curr);
-                // if multiple properties from current file absent in new file, they must go in the same order
-                prevNodeIdx = 0;
-            } else {
-                // insert it after old previous element (in the new list)
-                updated.add(++prevNodeIdx, curr);
+        final List<MergePlan.Level> levels = mergeSubtrees(currs, news, threshold, record);
+
+        final List<CmtNode> updated = new ArrayList<>(slots.length + node.getChildren().size());
+        for (int i = 0; i <= slots.length; i++) {
+            if (inserted.get(i) != null) {
+                updated.addAll(inserted.get(i));
+            }
+            if (i < slots.length) {
+                updated.add(slots[i]);
             }
         }
 
+        final MergePlan.Level res = record ? MergePlan.mapLevel(node, padding, updated, currs, news, levels) : null;
         node.getChildren().clear();
         node.addAll(updated);
+        return res;
     }
 
-    private static boolean processList(final TreeNode<CmtNode> node, final TreeNode<CmtNode> from) {
-        final boolean isList = node.hasListValue();
-        // node containing list items (node itself is not a list item)
-        // and target node contains children (nothing to merge otherwise)
-        if (isList && from.hasChildren()) {
-            final CmtNode cur = (CmtNode) node;
-            final CmtNode upd = (CmtNode) from;
-
-            // first of all, sync paddings (no matter if list is a scalar and would not be updated)
-            final int pad = upd.getChildren().get(0).getPadding();
-            for (CmtNode child : cur.getChildren()) {
-                // important to shift list node itself before continuing (otherwise subtree could be shifted)
-                shiftNode(child, pad - child.getPadding());
+    /**
+     * Merge matched subtrees. Subtrees are independent, so when merge is performed inside fork join pool, large
+     * subtrees are merged in parallel (small subtrees are merged in current thread to avoid tasks overhead).
+     *
+     * @param currs     current nodes
+     * @param news      matched new nodes
+     * @param threshold minimal subtree size (lines count in both files) to merge it in parallel (0 to disable)
+     * @param record    true to record merge plan
+     * @return recorded subtrees merge (nulls if not recorded)
+     */
+    private static List<MergePlan.Level> mergeSubtrees(final List<CmtNode> currs,
+                                                       final List<CmtNode> news,
+                                                       final int threshold,
+                                                       final boolean record) {
+        final boolean parallel = threshold > 0 && currs.size() > 1 && ForkJoinTask.inForkJoinPool();
+        final MergePlan.Level[] levels = new MergePlan.Level[currs.size()];
+        // forked tasks by subtree position
+        final List<ForkJoinTask<MergePlan.Level>> tasks = new ArrayList<>(Collections.nCopies(levels.length, null));
+        for (int i = 0; i < levels.length; i++) {
+            final CmtNode curr = currs.get(i);
+            final CmtNode newnode = news.get(i);
+            if (parallel && linesCount(curr) + linesCount(newnode) >= threshold) {
+                tasks.set(i, ForkJoinTask.adapt(() -> mergeLevel(curr, newnode, threshold, record)).fork());
+            } else {
+                levels[i] = mergeLevel(curr, newnode, threshold, record);
+            }
+        }
+        // wait for all tasks (even in case of error) in tree order
+        RuntimeException error = null;
+        for (int i = 0; i < levels.length; i++) {
+            final ForkJoinTask<MergePlan.Level> task = tasks.get(i);
+            if (task == null) {
+                continue;
+            }
+            try {
+                levels[i] = task.join();
+            } catch (RuntimeException ex) {
+                if (error == null) {
+                    error = ex;
+                }
             }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return Arrays.asList(levels);
+    }
 
-            // Processing required only for lists with object nodes (assuming new properties might be added to object)
-            // For both scalar and object lists new list items are not added
+    private static int linesCount(final CmtNode node) {
+        CmtNode last = node;
+        while (last.hasChildren()) {
+            last = last.getChildren().get(last.getChildren().size() - 1);
+        }
+        return last.getLineNum() - node.getLineNum() + 1;
+    }
 
-            final List<CmtNode> updList = new ArrayList<>(upd.getChildren());
+    /**
+     * Node containing list items (node itself is not a list item) and target node contains children.
+     *
+     * @param node      current node
+     * @param from      new node
+     * @param threshold minimal subtree size to merge it in parallel
+     * @param record    true to record merge plan
+     * @return recorded list merge or null
+     */
+    private static MergePlan.Level processList(final TreeNode<CmtNode> node,
+                                               final TreeNode<CmtNode> from,
+                                               final int threshold,
+                                               final boolean record) {
+        final CmtNode cur = (CmtNode) node;
+        final CmtNode upd = (CmtNode) from;
+
+        // first of all, sync paddings (no matter if list is a scalar and would not be updated)
+        final int pad = upd.getChildren().get(0).getPadding();
+        for (CmtNode child : cur.getChildren()) {
+            // important to shift list node itself before continuing (otherwise subtree could be shifted)
+            child.shift(pad - child.getPadding());
+        }
 
-            // all items should be unified with the new file structure (e.g. empty dash -> normal dash)
-            // remembering target structure
-            final boolean targetEmptyDash = updList.get(0).isEmptyDash();
+        // Processing required only for lists with object nodes (assuming new properties might be added to object)
+        // For both scalar and object lists new list items are not added
 
-            for (CmtNode item : cur.getChildren()) {
-                // nothing to sync in scalar items
-                if (!item.isObjectListItem()) {
-                    continue;
-                }
+        final List<CmtNode> updList = new ArrayList<>(upd.getChildren());
 
-                final CmtNode match = ListMatcher.match(item, updList);
-                if (match != null) {
-                    // actual items merge (padding is already synced so no additional shift will appear)
-                    mergeLevel(item, match);
+        // all items should be unified with the new file structure (e.g. empty dash -> normal dash)
+        // remembering target structure
+        final boolean targetEmptyDash = updList.get(0).isEmptyDash();
 
-                    // avoid one node matches for multiple nodes
-                    updList.remove(match);
-                }
+        // matched items (merged after matching)
+        final List<CmtNode> items = new ArrayList<>();
+        final List<CmtNode> matches = new ArrayList<>();
+        for (CmtNode item : cur.getChildren()) {
+            // nothing to sync in scalar items
+            if (!item.isObjectListItem()) {
+                continue;
+            }
 
-                if (updList.isEmpty()) {
-                    break;
+            final CmtNode match = ListMatcher.match(item, updList);
+            if (match != null) {
+                // identical items are not merged
+                if (record || item.getSubtreeHash() != match.getSubtreeHash() || hasObjectListItems(item)) {
+                    items.add(item);
+                    matches.add(match);
                 }
+
+                // avoid one node matches for multiple nodes
+                updList.remove(match);
             }
 
-            // recover merged items structure
-            updateListStructure(cur, targetEmptyDash);
+            if (updList.isEmpty()) {
+                break;
+            }
+        }
+        // actual items merge (padding is already synced so no additional shift will appear)
+        final List<MergePlan.Level> levels = mergeSubtrees(items, matches, threshold, record);
+
+        final MergePlan.Level res = record ? MergePlan.listLevel(cur, pad, targetEmptyDash, items, levels) : null;
+        // recover merged items structure
+        updateListStructure(cur, targetEmptyDash);
+        return res;
+    }
+
+    /**
+     * Merge of identical subtrees changes nothing, except object lists: list items structure is unified (list items
+     * style could be mixed, see {@link #updateListStructure(CmtNode, boolean)}) and items are matched by values
+     * (which could lead to not identical items matching). Such subtrees must be merged to get the same result.
+     *
+     * @param node identical subtree root
+     * @return true if subtree contains object list items
+     */
+    private static boolean hasObjectListItems(final CmtNode node) {
+        for (CmtNode child : node.getChildren()) {
+            if (child.isObjectListItem() || hasObjectListItems(child)) {
+                return true;
+            }
         }
-        return isList;
+        return false;
     }
 
-    private static void updateListStructure(final CmtNode cur, final boolean targetEmptyDash) {
+    /**
+     * Unify list items with the new file structure (after items merge).
+     *
+     * @param cur             list node
+     * @param targetEmptyDash target object items style
+     */
+    static void updateListStructure(final CmtNode cur, final boolean targetEmptyDash) {
         for (CmtNode item : cur.getChildren()) {
             item.getChildren().forEach(yamlNode -> yamlNode.setRoot(item));
 
@@ -190,76 +373,12 @@ public final class TreeMerger {
                 final CmtNode firstItemLine = item.getChildren().get(0);
                 if (item.isListItemWithProperty() && firstItemLine.hasComment()) {
                     // if first item contains comment need to move it before dash
-                    item.getTopComment().addAll(firstItemLine.getTopComment());
-                    firstItemLine.getTopComment().clear();
-                }
-            }
-        }
-    }
-
-    private static void shiftNode(final CmtNode node, final int shift) {
-        final boolean increase = shift > 0;
-        if (shift != 0) {
-            if (node.getValue().size() > 1) {
-                // important to shift multiline values (otherwise value may be flowed)
-
-                // first value line is a part of property declaration
-                final List<String> res = new ArrayList<>();
-                res.add(node.getValue().get(0));
-                for (int j = 1; j < node.getValue().size(); j++) {
-                    String line = node.getValue().get(j);
-
-                    // skip blank lines
-                    if (line.trim().isEmpty()) {
-                        res.add(line);
-                        continue;
-                    }
-
-                    if (increase) {
-                        // increase padding
-                        line = TreeStringUtils.shiftRight(line, shift);
-                    } else {
-                        // reduce padding (cut off whitespace)
-                        line = line.substring(-shift);
-                    }
-                    res.add(line);
-                }
-                node.setValue(res);
-            }
-            shiftComment(node, shift, increase);
-            node.setPadding(node.getPadding() + shift);
-
-            // important to shift entire subtree (otherwise list position could be flowed)
-            for (CmtNode child : node.getChildren()) {
-                shiftNode(child, shift);
-            }
-        }
-    }
-
-    private static void shiftComment(final CmtNode node, final int shift, final boolean increase) {
-        if (node.hasComment()) {
-            final List<String> cmt = new ArrayList<>();
-            for (String ln : node.getTopComment()) {
-                String line = ln;
-                // skip blank lines
-                if (line.trim().isEmpty()) {
-                    cmt.add(line);
-                    continue;
-                }
-
-                if (increase) {
-                    // increase padding
-                    line = TreeStringUtils.shiftRight(line, shift);
-                } else {
-                    // reduce padding (cut off whitespace)
-                    final int cmtStart = line.indexOf('#');
-                    // shift left, but only whitespace before comment
-                    line = line.substring(Math.min(-shift, cmtStart));
+                    final List<String> comment = new ArrayList<>(item.getTopComment());
+                    comment.addAll(firstItemLine.getTopComment());
+                    item.setTopComment(comment);
+                    firstItemLine.setTopComment(new ArrayList<>());
                 }
-                cmt.add(line);
             }
-            node.getTopComment().clear();
-            node.getTopComment().addAll(cmt);
         }
     }
 }
@@ -3,9 +3,11 @@ package ru.vyarus.yaml.updater.update;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import ru.vyarus.yaml.updater.parse.common.model.TreeNode;
+import ru.vyarus.yaml.updater.parse.common.model.YamlPath;
 import ru.vyarus.yaml.updater.parse.struct.model.StructNode;
 
 import java.util.HashSet;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -13,6 +15,10 @@ import java.util.Set;
  * added. List items are also checked.
  * <p>
  * Use snakeyaml-based models for correct values comparison.
+ * <p>
+ * Subtrees, identical in all three files (same subtree hashes, see
+ * {@link ru.vyarus.yaml.updater.parse.common.model.YamlLine#getSubtreeHash()}, confirmed by direct comparison)
+ * are not validated by value.
  *
  * @author Vyacheslav Rusakov
  * @since 17.05.2021
@@ -33,28 +39,47 @@ public final class UpdateResultValidator {
     public static void validate(final TreeNode<StructNode> merged,
                                 final TreeNode<StructNode> old,
                                 final TreeNode<StructNode> update) {
-        final Set<String> checked = new HashSet<>();
+        final Set<YamlPath> checked = new HashSet<>();
+        // paths of subtrees, identical in all files
+        final Set<YamlPath> identical = new HashSet<>();
         // for list items it is important to cut off path before item and search by sub path only
         // (because items would be on different indexes and so paths would be different in trees)
-        final String rootPath = merged.getYamlPath();
-        for (StructNode leaf : merged.getTreeLeaves()) {
-            final String fullYamlPath = leaf.getYamlPath();
-            final String yamlPath = fullYamlPath.substring(rootPath != null ? rootPath.length() + 1 : 0);
-            // ignore list positions in path (for list items correct items already selected)
-            checked.add(ListMatcher.unifyListItemPath(fullYamlPath));
+        final int rootPathSize = merged.getPath().size();
+        validateNodes(merged, old, update, rootPathSize, checked, identical);
+
+        checkMissedValues(old, update, checked, identical);
+    }
+
+    @SuppressWarnings("checkstyle:ParameterNumber")
+    private static void validateNodes(final TreeNode<StructNode> root,
+                                      final TreeNode<StructNode> old,
+                                      final TreeNode<StructNode> update,
+                                      final int rootPathSize,
+                                      final Set<YamlPath> checked,
+                                      final Set<YamlPath> identical) {
+        for (StructNode node : root.getChildren()) {
+            final YamlPath fullYamlPath = node.getPath();
+            final YamlPath yamlPath = fullYamlPath.subPath(rootPathSize);
 
             // nulls could appear when matching list items
             final StructNode oldNode = old != null ? old.find(yamlPath) : null;
             final StructNode newNode = update != null ? update.find(yamlPath) : null;
 
-            if (leaf.hasListValue()) {
-                validateList(leaf, oldNode, newNode);
-                continue;
+            if (node.isTreeLeaf()) {
+                // ignore list positions in path (for list items correct items already selected)
+                checked.add(fullYamlPath.unifyListItems());
+                if (node.hasListValue()) {
+                    validateList(node, oldNode, newNode);
+                } else {
+                    assertValue(node, fullYamlPath, oldNode, newNode);
+                }
+            } else if (isIdentical(node, oldNode) && isIdentical(node, newNode)) {
+                // nothing could be lost or changed
+                identical.add(fullYamlPath.unifyListItems());
+            } else {
+                validateNodes(node, old, update, rootPathSize, checked, identical);
             }
-            assertValue(leaf, fullYamlPath, oldNode, newNode);
         }
-
-        checkMissedValues(old, update, checked);
     }
 
     private static void validateList(final StructNode list,
@@ -78,7 +103,7 @@ public final class UpdateResultValidator {
     }
 
     private static void assertValue(final StructNode leaf,
-                                    final String fullYamlPath,
+                                    final YamlPath fullYamlPath,
                                     final StructNode oldNode,
                                     final StructNode newNode) {
         if (oldNode != null) {
@@ -105,29 +130,53 @@ public final class UpdateResultValidator {
 
     private static void checkMissedValues(final TreeNode<StructNode> old,
                                           final TreeNode<StructNode> update,
-                                          final Set<String> checked) {
+                                          final Set<YamlPath> checked,
+                                          final Set<YamlPath> identical) {
         // check for missed values (which should not be removed)
         if (old != null) {
-            for (StructNode node : old.getTreeLeaves()) {
-                final String yamlPath = node.getYamlPath();
-                if (!checked.contains(ListMatcher.unifyListItemPath(yamlPath))) {
-                    throw new IllegalStateException(String.format(
-                            "Value '%s' disappeared (should remain from original file): '%s'",
-                            yamlPath, node.getValue()));
-                }
-            }
+            checkMissedValues(old, checked, identical, "Value '%s' disappeared (should remain from original file): "
+                    + "'%s'");
         }
 
         // check for not added values from update file
         if (update != null) {
-            for (StructNode node : update.getTreeLeaves()) {
-                final String yamlPath = node.getYamlPath();
-                if (!checked.contains(ListMatcher.unifyListItemPath(yamlPath))) {
-                    throw new IllegalStateException(String.format(
-                            "Value '%s' from update file was not added: '%s'",
-                            yamlPath, node.getValue()));
+            checkMissedValues(update, checked, identical, "Value '%s' from update file was not added: '%s'");
+        }
+    }
+
+    private static void checkMissedValues(final TreeNode<StructNode> root,
+                                          final Set<YamlPath> checked,
+                                          final Set<YamlPath> identical,
+                                          final String message) {
+        for (StructNode node : root.getChildren()) {
+            final YamlPath yamlPath = node.getPath().unifyListItems();
+            if (node.isTreeLeaf()) {
+                if (!checked.contains(yamlPath)) {
+                    throw new IllegalStateException(String.format(message, node.getPath(), node.getValue()));
                 }
+            } else if (!identical.contains(yamlPath)) {
+                checkMissedValues(node, checked, identical, message);
+            }
+        }
+    }
+
+    private static boolean isIdentical(final StructNode node, final StructNode other) {
+        // hash mismatch is a fast negative answer, but hash match must be confirmed (collision must not hide values)
+        return other != null && node.getSubtreeHash() == other.getSubtreeHash() && isSameSubtree(node, other);
+    }
+
+    private static boolean isSameSubtree(final StructNode node, final StructNode other) {
+        // the same data as counted in subtree hash
+        if (!Objects.equals(node.getKey(), other.getKey()) || node.isListItem() != other.isListItem()
+                || !Objects.equals(node.getValue(), other.getValue())
+                || node.getChildren().size() != other.getChildren().size()) {
+            return false;
+        }
+        for (int i = 0; i < node.getChildren().size(); i++) {
+            if (!isSameSubtree(node.getChildren().get(i), other.getChildren().get(i))) {
+                return false;
             }
         }
+        return true;
     }
 }
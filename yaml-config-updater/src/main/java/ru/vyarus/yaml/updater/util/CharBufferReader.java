@@ -0,0 +1,40 @@
+package ru.vyarus.yaml.updater.util;
+
+import java.io.Reader;
+import java.nio.CharBuffer;
+
+/**
+ * Reader over character buffer (without copying buffer content). Required to pass already decoded content into
+ * snakeyaml (which accepts only reader).
+ * <p>
+ * Source buffer position is not changed.
+ *
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+public class CharBufferReader extends Reader {
+
+    private final CharBuffer buffer;
+
+    public CharBufferReader(final CharBuffer buffer) {
+        this.buffer = buffer.duplicate();
+    }
+
+    @Override
+    public int read(final char[] cbuf, final int off, final int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        final int count = Math.min(len, buffer.remaining());
+        buffer.get(cbuf, off, count);
+        return count;
+    }
+
+    @Override
+    public void close() {
+        // nothing to close
+    }
+}
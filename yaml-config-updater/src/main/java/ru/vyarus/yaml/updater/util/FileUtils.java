@@ -9,10 +9,16 @@ import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
@@ -106,6 +112,47 @@ public final class FileUtils {
         }
     }
 
+    /**
+     * Reads file through memory mapping: file content is decoded (UTF-8) directly from the page cache into
+     * the resulted buffer (without intermediate byte copies). Resulted buffer could be used by both
+     * {@link ru.vyarus.yaml.updater.parse.struct.StructureReader#read(java.nio.CharBuffer)} and
+     * {@link ru.vyarus.yaml.updater.parse.comments.CommentsReader#read(java.nio.CharBuffer)} so file would be
+     * decoded just once.
+     * <p>
+     * Useful only for large files: for small files mapping is slower than usual read.
+     *
+     * @param file file to read
+     * @return decoded file content
+     * @throws java.lang.IllegalStateException on read error or incorrect encoding
+     */
+    public static CharBuffer readMapped(final File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(mapped);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read file: " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Maps file into memory without decoding. Resulted buffer could be parsed by
+     * {@link ru.vyarus.yaml.updater.parse.comments.CommentsReader#read(java.nio.ByteBuffer)} directly on bytes.
+     *
+     * @param file file to read
+     * @return file content bytes
+     * @throws java.lang.IllegalStateException on read error
+     */
+    public static ByteBuffer readMappedBytes(final File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read file: " + file.getAbsolutePath(), e);
+        }
+    }
+
     /**
      * Creates temporary file by copying content of the specified file. This is required when file is loaded from
      * classpath or url in tests because updater accepts only exact file as updatable configuration.
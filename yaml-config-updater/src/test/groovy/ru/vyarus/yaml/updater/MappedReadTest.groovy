@@ -0,0 +1,60 @@
+package ru.vyarus.yaml.updater
+
+import ru.vyarus.yaml.updater.parse.comments.CommentsReader
+import ru.vyarus.yaml.updater.parse.comments.CommentsWriter
+import ru.vyarus.yaml.updater.parse.struct.StructureReader
+import ru.vyarus.yaml.updater.util.FileUtils
+import spock.lang.TempDir
+
+import java.nio.CharBuffer
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+
+/**
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+class MappedReadTest extends AbstractTest {
+
+    @TempDir
+    File dir
+
+    def "Check mapped read"() {
+
+        setup: "source file"
+        File file = new File(getClass().getResource("/common/$source").toURI())
+
+        when: "reading mapped file"
+        CharBuffer content = FileUtils.readMapped(file)
+
+        then: "same trees"
+        CommentsReader.read(content).toString() == CommentsReader.read(file).toString()
+        CommentsReader.read(content).linesCnt == CommentsReader.read(file).linesCnt
+        unifyString(CommentsWriter.write(CommentsReader.read(content))) == unifyString(file.text)
+        StructureReader.read(content).toString() == StructureReader.read(file).toString()
+
+        where:
+        source          | _
+        'sample.yml'    | _
+        'multiline.yml' | _
+        'lists.yml'     | _
+        'complex.yml'   | _
+        'sequences.yml' | _
+    }
+
+    def "Check mapped read used for update"() {
+
+        setup: "prepare files"
+        File current = new File(dir, "config.yml")
+        Files.copy(new File(getClass().getResource('/merge/simple.yml').toURI()).toPath(), current.toPath(), StandardCopyOption.REPLACE_EXISTING)
+        File update = new File(getClass().getResource('/merge/simple_upd.yml').toURI())
+
+        when: "updating with and without mapping"
+        def normal = YamlUpdater.create(current, update).dryRun(true).update()
+        def mapped = YamlUpdater.create(current, update).dryRun(true).mappedReadThreshold(1).update()
+
+        then: "same result"
+        mapped.dryRunResult == normal.dryRunResult
+        mapped.beforeLinesCnt == normal.beforeLinesCnt
+    }
+}
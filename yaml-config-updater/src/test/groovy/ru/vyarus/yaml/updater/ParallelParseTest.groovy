@@ -0,0 +1,146 @@
+package ru.vyarus.yaml.updater
+
+import spock.lang.TempDir
+
+import java.nio.file.Files
+import java.nio.file.StandardCopyOption
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.ForkJoinPool
+
+/**
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+class ParallelParseTest extends AbstractTest {
+
+    @TempDir
+    File dir
+
+    ExecutorService executor = Executors.newSingleThreadExecutor()
+
+    void cleanup() {
+        executor.shutdown()
+    }
+
+    def "Check parallel parse"() {
+
+        setup: "prepare files"
+        File current = new File(dir, "config.yml")
+        Files.copy(new File(getClass().getResource('/merge/simple.yml').toURI()).toPath(), current.toPath(), StandardCopyOption.REPLACE_EXISTING)
+        File update = new File(getClass().getResource('/merge/simple_upd.yml').toURI())
+
+        when: "updating with sequential and parallel parsing"
+        def normal = YamlUpdater.create(current, update).dryRun(true).update()
+        def parallel = YamlUpdater.create(current, update).dryRun(true).parseExecutor(executor).update()
+
+        then: "same result"
+        parallel.dryRunResult == normal.dryRunResult
+        parallel.beforeLinesCnt == normal.beforeLinesCnt
+        parallel.beforeSize == normal.beforeSize
+        parallel.updateLines == normal.updateLines
+    }
+
+    def "Check chunked parse"() {
+
+        setup: "prepare files"
+        File current = new File(dir, "config.yml")
+        Files.copy(new File(getClass().getResource('/merge/simple.yml').toURI()).toPath(), current.toPath(), StandardCopyOption.REPLACE_EXISTING)
+        File update = new File(getClass().getResource('/merge/simple_upd.yml').toURI())
+
+        when: "updating with and without chunked parsing"
+        def normal = YamlUpdater.create(current, update).dryRun(true).update()
+        def chunked = YamlUpdater.create(current, update).dryRun(true).chunkedParseThreshold(1).update()
+
+        then: "same result"
+        chunked.dryRunResult == normal.dryRunResult
+        chunked.beforeLinesCnt == normal.beforeLinesCnt
+        chunked.updateLines == normal.updateLines
+
+        when: "using custom pool"
+        ForkJoinPool pool = new ForkJoinPool(2)
+        def custom = YamlUpdater.create(current, update).dryRun(true).chunkedParseThreshold(1)
+                .forkJoinPool(pool).update()
+        pool.shutdown()
+
+        then: "same result"
+        custom.dryRunResult == normal.dryRunResult
+    }
+
+    def "Check parallel merge"() {
+
+        setup: "prepare files"
+        File current = new File(dir, "config.yml")
+        Files.copy(new File(getClass().getResource('/merge/lists.yml').toURI()).toPath(), current.toPath(), StandardCopyOption.REPLACE_EXISTING)
+        File update = new File(getClass().getResource('/merge/lists_upd.yml').toURI())
+
+        when: "updating with sequential and parallel merge"
+        def normal = YamlUpdater.create(current, update).dryRun(true).update()
+        def parallel = YamlUpdater.create(current, update).dryRun(true).parallelMergeThreshold(1).update()
+
+        then: "same result"
+        parallel.dryRunResult == normal.dryRunResult
+        parallel.afterLinesCnt == normal.afterLinesCnt
+
+        when: "using custom pool"
+        ForkJoinPool pool = new ForkJoinPool(2)
+        def custom = YamlUpdater.create(current, update).dryRun(true).parallelMergeThreshold(1)
+                .forkJoinPool(pool).update()
+        pool.shutdown()
+
+        then: "same result"
+        custom.dryRunResult == normal.dryRunResult
+    }
+
+    def "Check parallel parse without current config"() {
+
+        setup: "prepare files"
+        File current = new File(dir, "config.yml")
+        File update = new File(getClass().getResource('/merge/simple_upd.yml').toURI())
+
+        when: "updating"
+        def report = YamlUpdater.create(current, update).parseExecutor(executor).update()
+
+        then: "config created"
+        current.exists()
+        report.configChanged
+    }
+
+    def "Check parallel parse error"() {
+
+        setup: "prepare files"
+        File current = new File(dir, "config.yml")
+        current << "invalid content"
+        File update = new File(dir, "update.yml")
+        update << "some:"
+
+        when: "updating"
+        YamlUpdater.create(current, update).backup(false).parseExecutor(executor).update()
+
+        then: "error"
+        def ex = thrown(IllegalStateException)
+        ex.getCause().message.startsWith('Failed to parse current config file')
+    }
+
+    def "Check current config parsing awaited on update config error"() {
+
+        setup: "prepare files"
+        File current = new File(dir, "config.yml")
+        Files.copy(new File(getClass().getResource('/merge/simple.yml').toURI()).toPath(), current.toPath(), StandardCopyOption.REPLACE_EXISTING)
+        File update = new File(dir, "update.yml")
+        update << "invalid content"
+        boolean started = false
+        Executor delayed = { Runnable task -> executor.execute({ sleep(300); started = true; task.run() }) }
+
+        when: "updating"
+        YamlUpdater.create(current, update).backup(false).parseExecutor(delayed).update()
+
+        then: "update config error"
+        def ex = thrown(IllegalStateException)
+        ex.getCause().message.startsWith('Failed to parse update config file')
+
+        and: "current config parsing finished before exit"
+        started
+    }
+}
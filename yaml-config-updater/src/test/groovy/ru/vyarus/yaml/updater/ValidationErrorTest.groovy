@@ -3,6 +3,9 @@ package ru.vyarus.yaml.updater
 import ru.vyarus.yaml.updater.listen.UpdateListenerAdapter
 import ru.vyarus.yaml.updater.parse.comments.model.CmtNodeFactory
 import ru.vyarus.yaml.updater.parse.comments.model.CmtTree
+import ru.vyarus.yaml.updater.parse.struct.model.StructNode
+import ru.vyarus.yaml.updater.parse.struct.model.StructTree
+import ru.vyarus.yaml.updater.update.UpdateResultValidator
 import spock.lang.TempDir
 
 import java.util.function.Consumer
@@ -103,11 +106,41 @@ obj:
         ex.cause.cause.message == "Value 'two' from update file was not added: '2'"
     }
 
+    def "Check hash collision does not hide changed value"() {
+
+        when: "all subtree hashes are equal, but old value differs"
+        UpdateResultValidator.validate(tree('1'), tree('2'), tree('1'))
+
+        then: "detected"
+        def ex = thrown(IllegalStateException)
+        ex.message == "Invalid value on path 'obj/a': '1' when should remain from old file '2'"
+    }
+
+    private static StructTree tree(String value) {
+        StructNode obj = new CollidingNode(null, 0, 1, 'obj', null)
+        new CollidingNode(obj, 2, 2, 'a', value)
+        return new StructTree([obj], 2)
+    }
+
     private void exec(Consumer<CmtTree> callback) {
         UpdLst list = new UpdLst(callback)
         YamlUpdater.create(current, update).backup(false).listen(list).update()
     }
 
+    static class CollidingNode extends StructNode {
+
+        CollidingNode(StructNode root, int padding, int lineNum, String key, String value) {
+            super(root, padding, lineNum)
+            setKey(key)
+            setValue(value)
+        }
+
+        @Override
+        protected long computeContentHash() {
+            return 1L
+        }
+    }
+
     static class UpdLst extends UpdateListenerAdapter {
 
         Consumer<CmtTree> fun
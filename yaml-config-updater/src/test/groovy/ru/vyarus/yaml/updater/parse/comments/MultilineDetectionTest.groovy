@@ -29,5 +29,39 @@ class MultilineDetectionTest extends Specification {
         "|2"         | true  | 0    | 2
         ">+2"        | false | 1    | 2
         "| #comment" | true  | 0    | -1
+        " |+12  "    | true  | 1    | 12
+        "a | b"      | null  | null | null
+        "a >"        | false | 0    | -1
+        "#|"         | true  | 0    | -1
+        "2"          | null  | null | null
+        "|2-"        | null  | null | null
+    }
+
+    def "Check recognition in source text"() {
+
+        when: "marker detected inside larger text"
+        def res = MultilineValue.detect("foo: |-3 # cmt\nbar: 1", 4, 14)
+
+        then:
+        res.keep
+        res.ending == -1
+        res.indent == 3
+
+        and: "following text ignored"
+        MultilineValue.detect("foo: val\nbar: |", 4, 8) == null
+    }
+
+    def "Check flow multiline start detection"() {
+
+        expect:
+        MultilineValue.couldBeFlowMultiline(source) == res
+        MultilineValue.couldBeFlowMultiline("x:$source\ny: 1", 2, source.length() + 2) == res
+
+        where:
+        source       | res
+        " value"     | true
+        "   "        | false
+        " # comment" | false
+        "#value"     | true
     }
 }
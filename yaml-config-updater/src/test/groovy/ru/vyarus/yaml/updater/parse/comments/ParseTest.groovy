@@ -2,8 +2,13 @@ package ru.vyarus.yaml.updater.parse.comments
 
 
 import ru.vyarus.yaml.updater.parse.comments.model.CmtTree
+import ru.vyarus.yaml.updater.util.FileUtils
 import spock.lang.Specification
 
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.charset.StandardCharsets
+
 /**
  * @author Vyacheslav Rusakov
  * @since 26.04.2021
@@ -188,4 +193,70 @@ listOfObj: ''
     - '{}'
 """
     }
+
+    def "Check streaming read"() {
+        setup: "source file"
+        File file = new File(getClass().getResource("/common/$source").toURI())
+
+        when: "parsing from reader and channel"
+        CmtTree tree = CommentsReader.read(file)
+        CmtTree reader = new FileReader(file).withCloseable { CommentsReader.read(it) }
+        CmtTree channel = FileChannel.open(file.toPath()).withCloseable { CommentsReader.read(it) }
+
+        then: "same trees"
+        reader.toString() == tree.toString()
+        reader.linesCnt == tree.linesCnt
+        channel.toString() == tree.toString()
+        channel.linesCnt == tree.linesCnt
+
+        where:
+        source          | _
+        'sample.yml'    | _
+        'multiline.yml' | _
+        'lists.yml'     | _
+        'complex.yml'   | _
+        'sequences.yml' | _
+        'quotes.yml'    | _
+    }
+
+    def "Check byte-level read"() {
+
+        setup:
+        File file = new File(getClass().getResource("/common/$source").toURI())
+        CmtTree tree = CommentsReader.read(file)
+
+        when: "reading utf-8 bytes"
+        CmtTree bytes = CommentsReader.read(FileUtils.readMappedBytes(file))
+
+        then: "same trees"
+        bytes.toString() == tree.toString()
+        bytes.linesCnt == tree.linesCnt
+        CommentsWriter.write(bytes) == CommentsWriter.write(tree)
+
+        where:
+        source          | _
+        'sample.yml'    | _
+        'multiline.yml' | _
+        'lists.yml'     | _
+        'complex.yml'   | _
+        'sequences.yml' | _
+        'quotes.yml'    | _
+    }
+
+    def "Check byte-level read of non ascii content"() {
+
+        setup:
+        String yaml = "# комментарий\n\"ключ: 1\": значение # ü\nprop:\n  - 日本: |\n      текст\n"
+
+        when: "reading utf-8 bytes"
+        CmtTree tree = CommentsReader.read(ByteBuffer.wrap(yaml.getBytes(StandardCharsets.UTF_8)))
+
+        then: "decoded"
+        tree.children[0].key == 'ключ: 1'
+        tree.children[0].value == [' значение # ü']
+        tree.children[0].topComment == ['# комментарий']
+        tree.children[1].children[0].children[0].key == '日本'
+        tree.children[1].children[0].children[0].value == [' |', '      текст']
+        CommentsWriter.write(tree) == CommentsWriter.write(CommentsReader.read(yaml))
+    }
 }
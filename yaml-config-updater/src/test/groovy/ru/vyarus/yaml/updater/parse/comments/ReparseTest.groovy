@@ -0,0 +1,142 @@
+package ru.vyarus.yaml.updater.parse.comments
+
+import ru.vyarus.yaml.updater.parse.comments.model.CmtNode
+import ru.vyarus.yaml.updater.parse.comments.model.CmtTree
+import spock.lang.Specification
+
+/**
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+class ReparseTest extends Specification {
+
+    def "Check re-parse of changed yaml"() {
+
+        setup: "original file"
+        println "processing $file"
+        String original = new File(getClass().getResource("/common/$file").toURI()).text
+        CmtTree previous = CommentsReader.read(original)
+        def roots = new ArrayList<>(previous.children)
+
+        when: "adding lines at the beginning"
+        String changed = "# new comment\nadded: 1\n" + original
+        CmtTree tree = CommentsReader.reparse(previous, changed)
+
+        then: "tree equal to full parse"
+        dump(tree) == dump(CommentsReader.read(changed))
+        tree.linesCnt == CommentsReader.read(changed).linesCnt
+        CommentsWriter.write(tree) == CommentsWriter.write(CommentsReader.read(changed))
+
+        and: "unchanged sections reused"
+        tree.children.findAll { roots.contains(it) }.size() == reused
+
+        where:
+        file            | reused
+        'sample.yml'    | 3
+        // keep ending (|+) and trailing empty lines prevent reuse
+        'multiline.yml' | 13
+        'lists.yml'     | 7
+        'complex.yml'   | 1
+        'sequences.yml' | 8
+        'quotes.yml'    | 7
+    }
+
+    def "Check changed section"() {
+
+        setup:
+        CmtTree previous = CommentsReader.read("""# comment
+prop1: 1
+prop2:
+  sub: |
+    multiline
+prop3: 3
+""")
+        CmtNode prop1 = previous.children[0]
+        CmtNode prop2 = previous.children[1]
+
+        when: "section changed and lines removed"
+        String changed = """# comment
+prop1: 1
+prop2:
+  sub: |
+    multiline
+    added
+prop3: 3
+"""
+        CmtTree tree = CommentsReader.reparse(previous, changed)
+
+        then: "changed section parsed"
+        dump(tree) == dump(CommentsReader.read(changed))
+        tree.children[0].is(prop1)
+        !tree.children[1].is(prop2)
+        tree.children[2].lineNum == 7
+
+        when: "multiline value would continue"
+        previous = CommentsReader.read(changed)
+        CmtNode sub = previous.children[1]
+        changed = """# comment
+prop1: 1
+prop2:
+  sub: |
+    multiline
+    added
+
+      continue
+prop3: 3
+"""
+        tree = CommentsReader.reparse(previous, changed)
+
+        then: "section not reused"
+        dump(tree) == dump(CommentsReader.read(changed))
+        !tree.children[1].is(sub)
+        tree.children[1].children[0].value.size() == 5
+    }
+
+    def "Check flow value continued after reused section"() {
+
+        setup:
+        CmtTree previous = CommentsReader.read("""prop1: some
+prop2: 2
+""")
+
+        when: "continuation line added"
+        String changed = """prop1: some
+# comment
+  other
+prop2: 2
+"""
+        CmtTree tree = CommentsReader.reparse(previous, changed)
+
+        then: "value continued"
+        dump(tree) == dump(CommentsReader.read(changed))
+        tree.children[0].value == [' some', '# comment', '  other']
+        tree.children[1].lineNum == 4
+    }
+
+    def "Check previous tree parsed from stream"() {
+
+        setup:
+        CmtTree previous = CommentsReader.read(new StringReader('prop1: 1\nprop2: 2\n'))
+        CmtNode prop1 = previous.children[0]
+
+        when: "re-parsing"
+        String changed = 'prop0: 0\nprop1: 1\nprop2: 2\n'
+        CmtTree tree = CommentsReader.reparse(previous, changed)
+
+        then: "parsed, but not reused (no source lines)"
+        dump(tree) == dump(CommentsReader.read(changed))
+        !tree.children[1].is(prop1)
+    }
+
+    private String dump(CmtTree tree) {
+        StringBuilder res = new StringBuilder()
+        tree.children.each { dump(it, res) }
+        return res.toString()
+    }
+
+    private void dump(CmtNode node, StringBuilder res) {
+        res.append("${node.lineNum}:${node.padding} ${node.listItem} ${node.listItemWithProperty} ${node.key}=" +
+                "${node.value} / ${node.topComment}\n")
+        node.children.each { dump(it, res) }
+    }
+}
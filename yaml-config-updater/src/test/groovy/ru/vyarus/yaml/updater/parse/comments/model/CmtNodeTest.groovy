@@ -78,4 +78,46 @@ class CmtNodeTest extends AbstractTest {
         then: "error"
         thrown(IllegalStateException)
     }
+
+    def "Check deferred shift"() {
+        setup:
+        CmtNode node = CmtNodeFactory.createProperty(null, 2, 1, "foo", ' |', '    line1', '', '      line2')
+        CmtNode child = CmtNodeFactory.createProperty(node, 4, 2, "bar", ' 1')
+        node.getTopComment().addAll(['# top', '', '  # shifted'])
+        child.getTopComment().add('    # child')
+
+        when: "shifting right"
+        node.shift(2)
+
+        then: "only paddings changed"
+        node.padding == 4
+        child.padding == 6
+        node.valueShifted
+        node.commentShifted
+        child.commentShifted
+        !child.valueShifted
+        node.rawValue == [' |', '    line1', '', '      line2']
+        node.shiftValueLine('    line1') == '      line1'
+        node.shiftCommentLine('# top') == '  # top'
+
+        when: "shifting left more than comment padding"
+        node.shift(-4)
+
+        then: "lines shifted on access"
+        node.padding == 0
+        node.value == [' |', '  line1', '', '    line2']
+        node.topComment == ['# top', '', '# shifted']
+        child.topComment == ['  # child']
+        !node.valueShifted
+        !node.commentShifted
+
+        when: "shifting after access"
+        node.shift(2)
+        node.setTopComment(['# replaced'])
+
+        then: "replaced comment not shifted"
+        node.topComment == ['# replaced']
+        node.value == [' |', '    line1', '', '      line2']
+        child.topComment == ['    # child']
+    }
 }
@@ -40,4 +40,123 @@ class CmtPathSearchTest extends AbstractTest {
         tree.find('object3[0]/and').key == 'and'
         tree.find('object3[0]/and[0]').value[0] == ' sub1'
     }
+
+    def "Check search after modifications"() {
+
+        when: "parsing file"
+        CmtTree tree = CommentsReader.read(new File(getClass().getResource('/common/lists.yml').toURI()))
+        CmtNode list = tree.find('simple_list')
+        CmtNode item = tree.find('simple_list[1]')
+
+        then: "sub node search"
+        list.find('[1]').is(item)
+        tree.find('object3[0]').find('two/three').value[0] == ' 3'
+
+        when: "list item removed"
+        list.children.remove(0)
+
+        then: "index updated"
+        tree.find('simple_list[0]').is(item)
+        list.find('[0]').is(item)
+        tree.find('simple_list[1]').value[0] == ' three'
+
+        when: "property renamed"
+        tree.find('object3[0]/two').key = 'four'
+
+        then: "index updated"
+        tree.find('object3[0]/two') == null
+        tree.find('object3[0]/four/three').value[0] == ' 3'
+
+        when: "node moved"
+        CmtNode three = tree.find('object3[0]/four/three')
+        tree.find('object3[0]').add(three)
+
+        then: "index updated"
+        tree.find('object3[0]/four/three') == null
+        tree.find('object3[0]/three').is(three)
+    }
+
+    def "Check yaml path after modifications"() {
+
+        when: "parsing file"
+        CmtTree tree = CommentsReader.read(new File(getClass().getResource('/common/lists.yml').toURI()))
+        CmtNode list = tree.find('simple_list')
+        CmtNode item = tree.find('simple_list[1]')
+
+        then: "path computed"
+        item.yamlPath == 'simple_list[1]'
+        item.yamlPath.is(item.yamlPath)
+
+        when: "list item removed"
+        list.children.remove(0)
+
+        then: "position updated"
+        item.yamlPath == 'simple_list[0]'
+
+        when: "property renamed"
+        list.key = 'renamed'
+
+        then: "path updated"
+        item.yamlPath == 'renamed[0]'
+    }
+
+    def "Check node positions"() {
+
+        when: "parsing file"
+        CmtTree tree = CommentsReader.read(new File(getClass().getResource('/common/lists.yml').toURI()))
+        CmtNode list = tree.find('simple_list')
+        CmtNode item = tree.find('simple_list[1]')
+
+        then: "positions resolved"
+        item.position == 1
+        list.children.indexOf(item) == 1
+        list.position == tree.children.indexOf(list)
+
+        when: "list modified"
+        list.children.remove(0)
+
+        then: "positions updated"
+        item.position == 0
+        list.children.indexOf(item) == 0
+        list.children.contains(item)
+
+        when: "node removed"
+        list.children.remove(item)
+
+        then: "node detached"
+        item.position == -1
+        list.children.indexOf(item) == -1
+        !list.children.contains(item)
+    }
+
+    def "Check root properties cache"() {
+
+        when: "parsing file"
+        CmtTree tree = CommentsReader.read(new File(getClass().getResource('/common/sample.yml').toURI()))
+        CmtNode prop1 = tree.find('prop1')
+        Map<String, CmtNode> props = prop1.rootProperties
+
+        then: "map cached"
+        props.keySet() as List == ['prop1.1', 'prop1.2']
+        prop1.rootProperties.is(props)
+        tree.rootProperties.is(tree.rootProperties)
+
+        when: "modifying map"
+        props.remove('prop1.1')
+
+        then: "not allowed"
+        thrown(UnsupportedOperationException)
+
+        when: "property renamed"
+        tree.find('prop1/prop1.1').key = 'renamed'
+
+        then: "map updated"
+        prop1.rootProperties.keySet() as List == ['renamed', 'prop1.2']
+
+        when: "property removed"
+        prop1.children.remove(prop1.rootProperties['renamed'])
+
+        then: "map updated"
+        prop1.rootProperties.keySet() as List == ['prop1.2']
+    }
 }
@@ -0,0 +1,74 @@
+package ru.vyarus.yaml.updater.parse.comments.model
+
+import ru.vyarus.yaml.updater.parse.comments.CommentsReader
+import spock.lang.Specification
+
+/**
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+class SourceLinesTest extends Specification {
+
+    def "Check source lines"() {
+
+        when: "lines from source"
+        String source = "one\ntwo\nthree"
+        SourceLines lines = new SourceLines(source)
+        lines.addRange(0, 3)
+        lines.addRange(4, 7)
+
+        then: "lines resolved"
+        lines == ['one', 'two']
+        lines.isSourceLine(0)
+
+        when: "custom line added"
+        lines.add(1, 'custom')
+
+        then: "mixed lines"
+        lines == ['one', 'custom', 'two']
+        lines.isSourceLine(0)
+        !lines.isSourceLine(1)
+        lines.isSourceLine(2)
+
+        when: "lines removed"
+        lines.remove(0)
+
+        then: "removed"
+        lines == ['custom', 'two']
+
+        when: "copied to list of the same source"
+        SourceLines copy = new SourceLines(source)
+        copy.addRange(8, 13)
+        copy.addAll(lines)
+
+        then: "offsets preserved"
+        copy == ['three', 'custom', 'two']
+        copy.isSourceLine(2)
+
+        when: "writing lines"
+        StringWriter out = new StringWriter()
+        (0..<copy.size()).each { copy.write(it, out) }
+
+        then: "written"
+        out.toString() == 'threecustomtwo'
+    }
+
+    def "Check string source parsed into source lines"() {
+
+        when: "parsing string"
+        CmtTree tree = CommentsReader.read("""# comment
+prop: 1
+other: |
+  multi
+  line
+""")
+
+        then: "lines reference source"
+        CmtNode prop = tree.children[0]
+        prop.topComment instanceof SourceLines
+        prop.topComment == ['# comment']
+        prop.value instanceof SourceLines
+        prop.value == [' 1']
+        tree.children[1].value == [' |', '  multi', '  line']
+    }
+}
@@ -0,0 +1,94 @@
+package ru.vyarus.yaml.updater.parse.common.model
+
+import ru.vyarus.yaml.updater.AbstractTest
+import ru.vyarus.yaml.updater.parse.comments.CommentsReader
+import ru.vyarus.yaml.updater.parse.comments.model.CmtNode
+import ru.vyarus.yaml.updater.parse.comments.model.CmtTree
+import ru.vyarus.yaml.updater.parse.fused.FusedReader
+import ru.vyarus.yaml.updater.parse.fused.ParsedTrees
+import ru.vyarus.yaml.updater.parse.struct.model.CompactStructTree
+
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+
+/**
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+class ContentHashTest extends AbstractTest {
+
+    def "Check subtree hashes"() {
+
+        setup:
+        String yaml = '# comment\none:\n  two: 1\n  list:\n    - a: 1\n      b: 2\nthree: 3\n'
+        ParsedTrees first = FusedReader.read(yaml)
+        ParsedTrees second = FusedReader.read(yaml)
+
+        expect: "same content - same hashes"
+        first.comments.find('one').subtreeHash == second.comments.find('one').subtreeHash
+        first.structure.find('one').subtreeHash == second.structure.find('one').subtreeHash
+        first.comments.find('one').subtreeHash != first.comments.find('three').subtreeHash
+        CompactStructTree.of(first.structure).find('one').subtreeHash == first.structure.find('one').subtreeHash
+        CompactStructTree.of(first.structure).find('one/list').subtreeHash ==
+                first.structure.find('one/list').subtreeHash
+
+        when: "changing value in subtree"
+        CmtNode two = second.comments.find('one/two')
+        two.setValue([' 2'])
+
+        then: "hashes changed up to root"
+        first.comments.find('one/two').subtreeHash != two.subtreeHash
+        first.comments.find('one').subtreeHash != second.comments.find('one').subtreeHash
+        first.comments.find('three').subtreeHash == second.comments.find('three').subtreeHash
+
+        when: "reverting value"
+        two.setValue([' 1'])
+
+        then: "same hashes"
+        first.comments.find('one').subtreeHash == second.comments.find('one').subtreeHash
+
+        when: "removing child"
+        second.comments.find('one').children.remove(two)
+
+        then: "hash changed"
+        first.comments.find('one').subtreeHash != second.comments.find('one').subtreeHash
+
+        when: "shifting subtree"
+        CmtNode one = first.comments.find('one')
+        long hash = one.subtreeHash
+        one.shift(2)
+
+        then: "hash changed"
+        one.subtreeHash != hash
+    }
+
+    def "Check same hashes for bytes read"() {
+
+        setup: "non-ASCII value and comment"
+        String yaml = '# \u043a\u043e\u043c\none:\n  two: \u0437\u043d\u0430\u0447\n' +
+                '  three: |\n    \u0442\u0435\u043a\u0441\u0442\n'
+        CmtTree string = CommentsReader.read(yaml)
+        CmtTree bytes = CommentsReader.read(ByteBuffer.wrap(yaml.getBytes(StandardCharsets.UTF_8)))
+
+        expect: "bytes decoded for hash"
+        string.find('one').subtreeHash == bytes.find('one').subtreeHash
+
+        when: "shifted subtree"
+        string.find('one').shift(2)
+        bytes.find('one').shift(2)
+
+        then: "same hashes"
+        string.find('one').subtreeHash == bytes.find('one').subtreeHash
+    }
+
+    def "Check string hash"() {
+
+        expect: "strings boundaries counted"
+        ContentHash.add(ContentHash.add(ContentHash.EMPTY, 'ab'), 'c') !=
+                ContentHash.add(ContentHash.add(ContentHash.EMPTY, 'a'), 'bc')
+        ContentHash.add(ContentHash.EMPTY, (String) null) != ContentHash.add(ContentHash.EMPTY, '')
+
+        and: "region hash same as string hash"
+        ContentHash.add(ContentHash.EMPTY, 'a: bc', 3, 5, 2) == ContentHash.add(ContentHash.EMPTY, '  bc')
+    }
+}
@@ -0,0 +1,39 @@
+package ru.vyarus.yaml.updater.parse.common.model
+
+import ru.vyarus.yaml.updater.AbstractTest
+import ru.vyarus.yaml.updater.parse.comments.model.CmtTree
+import ru.vyarus.yaml.updater.parse.fused.FusedReader
+import ru.vyarus.yaml.updater.parse.fused.ParsedTrees
+import ru.vyarus.yaml.updater.parse.struct.YamlParserEngine
+import ru.vyarus.yaml.updater.parse.struct.model.StructTree
+
+/**
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+class KeysTableTest extends AbstractTest {
+
+    def "Check keys interning"() {
+
+        setup:
+        KeysTable keys = new KeysTable()
+
+        when: "parsing two configs"
+        ParsedTrees first = FusedReader.read('one:\n  two: 1\n', YamlParserEngine.getDefault(), keys)
+        ParsedTrees second = FusedReader.read('one:\n  \'two\': 2\n', YamlParserEngine.getDefault(), keys)
+        CmtTree cmt = first.comments
+        StructTree str = first.structure
+
+        then: "same names are the same instances"
+        cmt.find('one').key.is(str.find('one').key)
+        cmt.find('one').key.is(second.comments.find('one').key)
+        cmt.find('one/two').key.is(second.structure.find('one/two').key)
+        cmt.find('one/two').key.is(second.comments.find('one/two').key)
+        second.comments.find('one/two').sourceKey == "'two'"
+        keys.size() == 3
+
+        and: "cleaned name resolved from table"
+        keys.clean("'two'").is(cmt.find('one/two').key)
+        keys.clean(null) == null
+    }
+}
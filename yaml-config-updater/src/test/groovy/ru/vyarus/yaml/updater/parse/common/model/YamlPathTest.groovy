@@ -0,0 +1,90 @@
+package ru.vyarus.yaml.updater.parse.common.model
+
+import ru.vyarus.yaml.updater.AbstractTest
+import ru.vyarus.yaml.updater.parse.comments.CommentsReader
+import ru.vyarus.yaml.updater.parse.comments.model.CmtNode
+import ru.vyarus.yaml.updater.parse.comments.model.CmtTree
+
+/**
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+class YamlPathTest extends AbstractTest {
+
+    def "Check path parsing"() {
+
+        expect:
+        YamlPath.parse(path).toString() == path
+        YamlPath.parse(path).size() == size
+
+        where:
+        path                | size
+        ''                  | 0
+        'one'               | 1
+        'one/two'           | 2
+        'one[1]'            | 2
+        'one[1][2]/two'     | 4
+        '[1]/two'           | 2
+        'one[x]/two'        | 2
+        'one[*]/two'        | 3
+        'one[99999999999]'  | 1
+    }
+
+    def "Check path operations"() {
+
+        when: "building path"
+        YamlPath path = YamlPath.EMPTY.child('one').item(2).child('two')
+
+        then: "path equal to parsed"
+        path == YamlPath.parse('one[2]/two')
+        path.hashCode() == YamlPath.parse('one[2]/two').hashCode()
+        path != YamlPath.parse('one[1]/two')
+        path.startsWith(YamlPath.parse('one[2]'))
+        !path.startsWith(YamlPath.parse('one[1]'))
+        path.getKey(0) == 'one'
+        path.isListItem(1)
+        path.getListPosition(1) == 2
+
+        and: "sub path"
+        path.subPath(1).toString() == '[2]/two'
+        path.subPath(2) == YamlPath.parse('two')
+
+        and: "resolved path"
+        YamlPath.parse('one[2]').resolve(YamlPath.parse('two')) == path
+        YamlPath.parse('one[2]').resolve(YamlPath.parse('two')).hashCode() == path.hashCode()
+        YamlPath.EMPTY.resolve(path).is(path)
+
+        and: "unified path"
+        path.unifyListItems().toString() == 'one[*]/two'
+        path.unifyListItems() == YamlPath.parse('one[5]/two').unifyListItems()
+        path.unifyListItems().unifyListItems().is(path.unifyListItems())
+    }
+
+    def "Check nodes search by path"() {
+
+        when: "parsing file"
+        CmtTree tree = CommentsReader.read(new File(getClass().getResource('/common/lists.yml').toURI()))
+        CmtNode item = tree.find('object3[0]/two/three')
+
+        then: "path search"
+        item.path == YamlPath.parse('object3[0]/two/three')
+        tree.find(item.path).is(item)
+        tree.find('object3[0]').find(item.path.subPath(2)).is(item)
+    }
+
+    def "Check search by ambiguous names"() {
+
+        when: "parsing file with separator in property names"
+        CmtTree tree = CommentsReader.read("'a/b':\n  c: 1\n  'd[1]': 2\nx:\n  - y: 1\n")
+
+        then: "names found by string path"
+        tree.find('a/b/c').value == [' 1']
+        tree.find('a/b/d[1]').value == [' 2']
+        tree.find('a/b').find('d[1]').value == [' 2']
+        tree.find('x[0]/y').value == [' 1']
+
+        and: "misses"
+        tree.find('a/b/e') == null
+        tree.find('x[1]') == null
+    }
+}
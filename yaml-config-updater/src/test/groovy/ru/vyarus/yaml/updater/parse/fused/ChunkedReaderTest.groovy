@@ -0,0 +1,73 @@
+package ru.vyarus.yaml.updater.parse.fused
+
+import ru.vyarus.yaml.updater.parse.common.model.TreeNode
+import ru.vyarus.yaml.updater.parse.common.model.YamlLine
+import ru.vyarus.yaml.updater.parse.struct.YamlParserEngine
+import spock.lang.Specification
+
+import java.nio.CharBuffer
+import java.util.concurrent.ForkJoinPool
+
+/**
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+class ChunkedReaderTest extends Specification {
+
+    ForkJoinPool pool = new ForkJoinPool(2)
+
+    void cleanup() {
+        pool.shutdown()
+    }
+
+    def "Check chunked parse result equal to sequential parse"() {
+
+        when: "parsing file by chunks (chunk per root property)"
+        File file = new File(getClass().getResource(res).toURI())
+        ParsedTrees seq = FusedReader.read(file.text)
+        ParsedTrees chunked = ChunkedReader.read(file.text, YamlParserEngine.default, pool, 1)
+        ParsedTrees fromBuffer = ChunkedReader.read(CharBuffer.wrap(file.text), YamlParserEngine.default, pool, 1)
+        ParsedTrees seqBuffer = FusedReader.read(CharBuffer.wrap(file.text))
+
+        then: "trees are the same"
+        [[chunked, seq], [fromBuffer, seqBuffer]].each { ParsedTrees trees, ParsedTrees exp ->
+            assert trees.validated
+            assert trees.structure.toString() == exp.structure.toString()
+            assert trees.comments.toString() == exp.comments.toString()
+            assert lines(trees.structure) == lines(exp.structure)
+            assert lines(trees.comments) == lines(exp.comments)
+            assert trees.structure.linesCnt == exp.structure.linesCnt
+            assert trees.comments.linesCnt == exp.comments.linesCnt
+        }
+
+        where:
+        res << ['/common/sample.yml', '/common/lists.yml', '/common/multiline.yml', '/common/complex.yml',
+                '/common/sequences.yml', '/common/vars.yml']
+    }
+
+    def "Check fallback to sequential parse"() {
+
+        when: "alias references anchor in other chunk"
+        ParsedTrees trees = ChunkedReader.read("a: &x 1\nb: *x\n", YamlParserEngine.default, pool, 1)
+
+        then: "parsed"
+        trees.validated
+        trees.structure.toString() == FusedReader.read("a: &x 1\nb: *x\n").structure.toString()
+
+        when: "invalid yaml"
+        ChunkedReader.read("a: 1\nb: \"2\n", YamlParserEngine.default, pool, 1)
+
+        then: "snakeyaml error"
+        def ex = thrown(IllegalStateException)
+        ex.message == 'Failed to parse yaml'
+    }
+
+    private static <T extends YamlLine<T>> List<Integer> lines(TreeNode<T> node) {
+        List<Integer> res = []
+        node.children.each {
+            res << it.lineNum
+            res.addAll(lines(it))
+        }
+        res
+    }
+}
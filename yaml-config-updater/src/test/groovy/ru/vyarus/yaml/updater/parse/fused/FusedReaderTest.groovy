@@ -0,0 +1,124 @@
+package ru.vyarus.yaml.updater.parse.fused
+
+import ru.vyarus.yaml.updater.parse.comments.CommentsReader
+import ru.vyarus.yaml.updater.parse.comments.model.CmtNode
+import ru.vyarus.yaml.updater.parse.comments.model.CmtTree
+import ru.vyarus.yaml.updater.parse.common.model.TreeNode
+import ru.vyarus.yaml.updater.parse.struct.StructureReader
+import ru.vyarus.yaml.updater.parse.struct.model.StructTree
+import ru.vyarus.yaml.updater.update.CommentsParserValidator
+import spock.lang.Specification
+
+import java.nio.CharBuffer
+
+/**
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+class FusedReaderTest extends Specification {
+
+    def "Check fused parse result equal to separate parsers"() {
+
+        when: "parsing file with both parsers at once"
+        File file = new File(getClass().getResource(res).toURI())
+        ParsedTrees trees = FusedReader.read(file)
+        ParsedTrees fromString = FusedReader.read(file.text)
+        ParsedTrees fromBuffer = FusedReader.read(CharBuffer.wrap(file.text))
+
+        and: "parsing separately"
+        StructTree struct = StructureReader.read(file)
+        CmtTree tree = CommentsReader.read(file)
+        CommentsParserValidator.validate(tree, struct)
+
+        then: "trees are the same"
+        [trees, fromString, fromBuffer].each {
+            assert it.validated
+            assert it.structure.toString() == struct.toString()
+            assert it.comments.toString() == tree.toString()
+            assert parsedValues(it.comments) == parsedValues(tree)
+        }
+        trees.structure.linesCnt == struct.linesCnt
+        trees.comments.linesCnt == tree.linesCnt
+
+        where:
+        res << ['/common/sample.yml', '/common/lists.yml', '/common/multiline.yml', '/common/complex.yml',
+                '/common/sequences.yml', '/common/vars.yml']
+    }
+
+    def "Check aliases and flow values"() {
+
+        when: "parsing yaml with aliases"
+        String yaml = """s: &s val
+obj: &obj [1, *s]
+copy: *obj
+ref: *s
+list:
+  - {a: 1, b: *s}
+  - [*s, &q 2, *q]
+"""
+        ParsedTrees trees = FusedReader.read(yaml)
+
+        then: "structure is the same as composed by snakeyaml"
+        trees.validated
+        trees.structure.toString() == StructureReader.read(yaml).toString()
+        trees.structure.toString() == """s: 'val'
+obj: '&id001 [1, &id002 val]'
+copy: '&id001 [1, &id002 val]'
+ref: 'val'
+list: 
+  - '{a: 1, b: &id001 val}'
+  - '[&id001 val, &id002 2, *id002]'
+"""
+    }
+
+    def "Check trees difference detection"() {
+
+        when: "parsing yaml with incorrectly parsed property"
+        ParsedTrees trees = FusedReader.read(new File(getClass().getResource('/common/quotes.yml').toURI()))
+
+        then: "not validated"
+        !trees.validated
+
+        when: "validating trees"
+        CommentsParserValidator.validate(trees.comments, trees.structure)
+
+        then: "detailed error"
+        def ex = thrown(IllegalStateException)
+        ex.message.startsWith('Comments parser validation problem on line 8')
+    }
+
+    def "Check invalid yaml"() {
+
+        when: "parsing invalid yaml"
+        FusedReader.read("""one: 1
+  two: 2
+""")
+
+        then: "snakeyaml error"
+        def ex = thrown(IllegalStateException)
+        ex.message == 'Failed to parse yaml'
+        ex.cause.class.name.startsWith('org.yaml.snakeyaml')
+    }
+
+    def "Check multiple documents"() {
+
+        when: "parsing multiple documents"
+        FusedReader.read("""one: 1
+---
+two: 2
+""")
+
+        then: "error"
+        def ex = thrown(IllegalStateException)
+        ex.cause.message.startsWith('Expected a single document in the stream')
+    }
+
+    private List<String> parsedValues(TreeNode<CmtNode> node) {
+        List<String> res = []
+        node.children.each {
+            res.add(it.lineNum + ':' + it.parsedValue)
+            res.addAll(parsedValues(it))
+        }
+        res
+    }
+}
@@ -1,6 +1,7 @@
 package ru.vyarus.yaml.updater.parse.struct
 
 
+import ru.vyarus.yaml.updater.parse.struct.model.StructNode
 import ru.vyarus.yaml.updater.parse.struct.model.StructTree
 import spock.lang.Specification
 
@@ -125,4 +126,61 @@ listOfObj:
     - '{}'
 """
     }
+
+    def "Check incremental parse"() {
+
+        when: "parsing node by node"
+        StructEventReader reader = new StructEventReader(new StringReader("""one:
+  two: 2
+list:
+  - a: 1
+    b: 2
+"""))
+        List<String> nodes = []
+        StructNode node
+        while ((node = reader.nextNode()) != null) {
+            nodes.add(node.lineNum + ':' + node.key)
+        }
+
+        then: "nodes returned in file order"
+        nodes == ['1:one', '2:two', '3:list', '4:null', '4:a', '5:b']
+        reader.tree.toString() == """one: 
+  two: '2'
+list: 
+  - a: '1'
+    b: '2'
+"""
+        reader.tree.linesCnt == 6
+    }
+
+    def "Check aliases parse"() {
+
+        when: "parsing yaml with aliases"
+        StructTree tree = StructureReader.read("""one: &a 1
+two: *a
+flow: [*a, 2]
+""")
+
+        then: "aliases resolved"
+        tree.toString() == """one: '1'
+two: '1'
+flow: '[&id001 1, 2]'
+"""
+    }
+
+    def "Check lazy flow values"() {
+
+        when: "parsing flow values"
+        StructTree tree = StructureReader.read("""one: [1, 2]
+two: {a: 1}
+""")
+
+        then: "values not computed"
+        tree.children.every { it.lazyValue }
+
+        and: "computed on demand"
+        tree.children[0].value == '[1, 2]'
+        !tree.children[0].lazyValue
+        tree.children[1].lazyValue
+    }
 }
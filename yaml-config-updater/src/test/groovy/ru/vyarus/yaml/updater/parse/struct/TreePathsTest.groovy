@@ -5,6 +5,8 @@ import ru.vyarus.yaml.updater.parse.struct.model.StructNode
 import ru.vyarus.yaml.updater.parse.struct.model.StructTree
 import spock.lang.Specification
 
+import java.util.stream.Collectors
+
 /**
  * @author Vyacheslav Rusakov
  * @since 29.05.2021
@@ -80,6 +82,23 @@ class TreePathsTest extends Specification {
   75| flow"""
     }
 
+    def "Check leaves traversal"() {
+
+        when: "parsing"
+        StructTree tree = StructureReader.read(new File(getClass().getResource('/common/lists.yml').toURI()))
+        List<String> leaves = tree.getTreeLeaves()*.yamlPath
+
+        then: "traversal without list"
+        List<String> res = []
+        tree.forEachLeaf { res.add(it.yamlPath) }
+        res == leaves
+
+        and: "parallel traversal"
+        tree.leaves(true).map { it.yamlPath }.collect(Collectors.toList()) == leaves
+        tree.find('object3[0]').leaves(false).map { it.yamlPath }.collect(Collectors.toList()) ==
+                tree.find('object3[0]').getTreeLeaves()*.yamlPath
+    }
+
     private String toPaths(StructTree tree) {
         return toPaths(tree.getTreeLeaves()).join('\n')
     }
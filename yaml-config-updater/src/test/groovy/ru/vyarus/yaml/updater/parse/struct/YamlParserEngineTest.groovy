@@ -0,0 +1,60 @@
+package ru.vyarus.yaml.updater.parse.struct
+
+import org.yaml.snakeyaml.LoaderOptions
+import spock.lang.Specification
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+/**
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+class YamlParserEngineTest extends Specification {
+
+    def "Check engine reuse"() {
+
+        setup:
+        YamlParserEngine engine = new YamlParserEngine()
+        File file = new File(getClass().getResource('/common/sequences.yml').toURI())
+        String expected = StructureReader.read(file).toString()
+        ExecutorService executor = Executors.newFixedThreadPool(4)
+
+        when: "parsing with the same engine in multiple threads"
+        List<String> res = executor.invokeAll((1..20).collect {
+            { -> StructureReader.read(file, engine).toString() } as Callable<String>
+        })*.get()
+
+        then: "results are the same"
+        res.every { it == expected }
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "Check custom loader options"() {
+
+        setup:
+        LoaderOptions options = new LoaderOptions()
+        options.setMaxAliasesForCollections(1)
+        YamlParserEngine engine = new YamlParserEngine(options)
+        String yaml = """obj: &a [1, 2]
+one: *a
+two: *a
+"""
+
+        when: "parsing with default engine"
+        StructureReader.read(yaml)
+
+        then: "ok"
+        noExceptionThrown()
+
+        when: "parsing with custom options"
+        StructureReader.read(yaml, engine)
+
+        then: "aliases limit applied"
+        def ex = thrown(IllegalStateException)
+        ex.cause.message.startsWith('Number of aliases for non-scalar nodes exceeds the specified max=1')
+    }
+}
@@ -0,0 +1,42 @@
+package ru.vyarus.yaml.updater.parse.struct.model
+
+import ru.vyarus.yaml.updater.AbstractTest
+import ru.vyarus.yaml.updater.parse.struct.StructureReader
+
+/**
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+class CompactStructTreeTest extends AbstractTest {
+
+    def "Check compact tree"() {
+
+        when: "compacting tree"
+        StructTree tree = StructureReader.read(new File(getClass().getResource('/common/lists.yml').toURI()))
+        CompactStructTree compact = CompactStructTree.of(tree)
+
+        then: "same structure"
+        compact.toString() == tree.toString()
+        compact.linesCnt == tree.linesCnt
+        compact.treeLeaves*.yamlPath == tree.treeLeaves*.yamlPath
+        CompactStructTree.of(compact).is(compact)
+
+        and: "search works"
+        compact.find('simple_list[1]').value == 'two'
+        compact.find('simple_list[1]').yamlPath == 'simple_list[1]'
+        compact.find('object3[0]/two/three').value == '3'
+        compact.find('object3[0]').find('two/three').value == '3'
+        compact.find('object3[0]/two/three').root.key == 'two'
+        compact.find('object3[0]/two/three').is(compact.find('object3[0]/two/three'))
+        compact.find('object3[0]/two/three').root.is(compact.find('object3[0]/two'))
+        compact.find('simple_list[5]') == null
+        compact.find('simple_list').children.is(compact.find('simple_list').children)
+        compact.find('simple_list[1]').position == 1
+
+        when: "modifying tree"
+        compact.find('simple_list').setValue('1')
+
+        then: "not allowed"
+        thrown(UnsupportedOperationException)
+    }
+}
@@ -34,4 +34,22 @@ class StructNodeTest extends AbstractTest {
         then:
         node.toString() == '- '
     }
+
+    def "Check lazy value"() {
+
+        when: "lazy value"
+        int calls = 0
+        StructNode node = StructNodeFactory.createProperty(null, 0, 1, "foo", null)
+        node.setLazyValue({ calls++; '[1, 2]' })
+
+        then: "not computed"
+        node.lazyValue
+        calls == 0
+
+        and: "computed once"
+        node.value == '[1, 2]'
+        node.identityValue == '[1, 2]'
+        !node.lazyValue
+        calls == 1
+    }
 }
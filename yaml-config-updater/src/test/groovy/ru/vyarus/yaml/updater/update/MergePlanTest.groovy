@@ -0,0 +1,73 @@
+package ru.vyarus.yaml.updater.update
+
+import ru.vyarus.yaml.updater.AbstractTest
+import ru.vyarus.yaml.updater.parse.comments.CommentsReader
+import ru.vyarus.yaml.updater.parse.comments.CommentsWriter
+import ru.vyarus.yaml.updater.parse.comments.model.CmtTree
+
+/**
+ * @author Vyacheslav Rusakov
+ * @since 17.10.2026
+ */
+class MergePlanTest extends AbstractTest {
+
+    def "Check merge plan application"() {
+
+        setup:
+        String current = new File(getClass().getResource('/merge/simple.yml').toURI()).text
+        String update = new File(getClass().getResource('/merge/simple_upd.yml').toURI()).text
+        // same structure, different values
+        String other = current.replace('prop1.1: 1.1', 'prop1.1: 7.7').replace('pppp: some', 'pppp: other')
+
+        when: "merging with plan"
+        CmtTree tree = CommentsReader.read(current)
+        MergePlan plan = TreeMerger.mergeWithPlan(tree, CommentsReader.read(update), null, 0)
+        CmtTree expected = CommentsReader.read(current)
+        TreeMerger.merge(expected, CommentsReader.read(update))
+
+        then: "merged"
+        CommentsWriter.write(tree) == CommentsWriter.write(expected)
+        plan.structureHash == MergePlan.structureHash(CommentsReader.read(other))
+        plan.updateHash == MergePlan.updateHash(CommentsReader.read(update))
+
+        when: "applying serialized plan to other config"
+        ByteArrayOutputStream out = new ByteArrayOutputStream()
+        new ObjectOutputStream(out).writeObject(plan)
+        plan = new ObjectInputStream(new ByteArrayInputStream(out.toByteArray())).readObject() as MergePlan
+        tree = CommentsReader.read(other)
+        plan.apply(tree)
+        expected = CommentsReader.read(other)
+        TreeMerger.merge(expected, CommentsReader.read(update))
+
+        then: "same as merge"
+        CommentsWriter.write(tree) == CommentsWriter.write(expected)
+        CommentsWriter.write(tree).contains('prop1.1: 7.7')
+        tree.find('prop11').addedNode
+    }
+
+    def "Check plan for different structure"() {
+
+        setup:
+        CmtTree tree = CommentsReader.read('a:\n  - b: 1\n    c: 2\nd: 1\n')
+        MergePlan plan = TreeMerger.mergeWithPlan(tree, CommentsReader.read('a:\n  - b: 1\n    e: 2\nd: 1\n'), null, 0)
+
+        when: "applying to config with different value"
+        tree = CommentsReader.read('a:\n  - b: 1\n    c: 2\nd: 7\n')
+        plan.apply(tree)
+
+        then: "applied"
+        CommentsWriter.write(tree) == 'a:\n  - b: 1\n    c: 2\n    e: 2\nd: 7\n'
+
+        when: "applying to config with different list item"
+        plan.apply(CommentsReader.read('a:\n  - b: 1\n    c: 3\nd: 1\n'))
+
+        then: "not applicable: list items matched by values"
+        thrown(IllegalArgumentException)
+
+        when: "applying to config with different property"
+        plan.apply(CommentsReader.read('a:\n  - b: 1\n    c: 2\nf: 1\n'))
+
+        then: "not applicable"
+        thrown(IllegalArgumentException)
+    }
+}
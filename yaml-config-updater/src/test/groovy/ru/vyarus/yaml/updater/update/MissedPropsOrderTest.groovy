@@ -35,4 +35,54 @@ sub:
     prop2: 12
 """
     }
+
+    def "Check missed props order with reordered properties"() {
+
+        when: "merging"
+        CmtTree tree = CommentsReader.read("""
+sub:
+    a: 1
+    x: 1
+    c: 1
+    y: 1
+    b: 1
+    z: 1
+""")
+        CmtTree upd = CommentsReader.read("""
+sub:
+    c: 2
+    b: 2
+    a: 2
+    n: 2
+""")
+        TreeMerger.merge(tree, upd)
+
+        then: "missed props follow previous props"
+        unifyString(CommentsWriter.write(tree)) == """
+sub:
+    c: 1
+    y: 1
+    b: 1
+    z: 1
+    a: 1
+    x: 1
+    n: 2
+"""
+    }
+
+    def "Check wide map merge"() {
+
+        when: "merging map with many properties"
+        CmtTree tree = CommentsReader.read((0..<5000).collect { "k${it * 2}: 1\n" }.join(''))
+        CmtTree upd = CommentsReader.read((0..<5000).collect { "k${it * 3}: 2\n" }.join(''))
+        TreeMerger.merge(tree, upd)
+        List<String> keys = tree.children*.key
+
+        then: "all properties merged in order"
+        keys.size() == 5000 + 5000 - 1667
+        keys.take(5) == ['k0', 'k2', 'k4', 'k3', 'k6']
+        tree.find('k6').value[0] == ' 1'
+        tree.find('k9').value[0] == ' 2'
+        upd.children.size() == 5000
+    }
 }
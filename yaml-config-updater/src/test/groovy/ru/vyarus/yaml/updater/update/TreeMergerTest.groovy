@@ -239,4 +239,15 @@ prop3:
 
     }
 
+    def "Check identical lists unification"() {
+
+        when: "merging identical file with mixed list items style"
+        String yaml = 'a: 1\nlist:\n  -\n    one: 1\n  - two: 2\n    three: 3\n'
+        CmtTree tree = CommentsReader.read(yaml)
+        TreeMerger.merge(tree, CommentsReader.read(yaml))
+
+        then: "list items style unified"
+        CommentsWriter.write(tree) == 'a: 1\nlist:\n  -\n    one: 1\n  -\n    two: 2\n    three: 3\n'
+    }
+
 }